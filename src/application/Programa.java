@@ -18,7 +18,7 @@ public class Programa {
 		Scanner sc = new Scanner(System.in);
 		List<ChessPiece> captured = new ArrayList<>();
 		
-		while(!chessMatch.getCheckMate()) {
+		while(!chessMatch.getCheckMate() && !chessMatch.getStalemate()) {
 			try {
 				UI.clearScreen();
 				UI.printMatch(chessMatch, captured);
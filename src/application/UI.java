@@ -83,7 +83,10 @@ public class UI {
 		printCapturedPieces(captured);
 		System.out.println();
 		System.out.println("Turn: " + chessMatch.getTurn());
-		if(!chessMatch.getCheckMate()) {
+		if(chessMatch.getStalemate()) {
+			System.out.println("STALEMATE!!! Empate: " + chessMatch.getCurrentPlayer() + " não tem movimentos");
+		}
+		else if(!chessMatch.getCheckMate()) {
 			System.out.println("Esperando o jogador: " + chessMatch.getCurrentPlayer());
 			if(chessMatch.getCheck()) {
 				System.out.println("CHECK!!");
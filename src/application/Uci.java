@@ -0,0 +1,381 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Color;
+import chess.Fen;
+import chess.Move;
+import chess.MoveBuffer;
+import chess.PieceType;
+import chess.engine.CancellationToken;
+import chess.engine.Engine;
+import chess.engine.ParallelSearch;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.TimeManager;
+import chess.engine.TranspositionTable;
+
+//interface UCI (Universal Chess Interface) pela entrada e saída padrão, para jogar em gerenciadores
+//de torneio; alternativa ao Programa (console). A busca roda numa thread própria, então "stop" e
+//"ponderhit" são atendidos durante a busca. A posição é mantida entre os comandos "position":
+//quando a nova lista de lances continua a anterior, só os lances novos são jogados
+public class Uci {
+
+	private static final String NAME = "chess-sistem";
+	private static final int DEFAULT_HASH = 16;
+	private static final int MAX_HASH = 1024;
+	private static final int MAX_THREADS = 64;
+	private static final PieceType[] TYPES = PieceType.values();
+
+	private PrintStream out;
+
+	private ChessMatch match = new ChessMatch();
+	//posição do último "position": base (startpos ou fen) e lances jogados a partir dela
+	private String base = "startpos";
+	private List<String> played = new ArrayList<>();
+	private List<Integer> playedMoves = new ArrayList<>();
+	private MoveBuffer legal = new MoveBuffer();
+	//FEN da posição atual, gravado no "position": durante a busca a partida está sendo usada pela thread de busca
+	private String fen;
+
+	private int hash = DEFAULT_HASH;
+	private int threads = 1;
+	private ParallelSearch search;
+
+	//busca em andamento
+	private Thread worker;
+	private CancellationToken token;
+	//limites com tempo de uma busca de ponder, aplicados no ponderhit
+	private SearchLimits ponderLimits;
+	//em "go infinite" e "go ponder", o bestmove só sai depois de stop ou ponderhit
+	private CountDownLatch release;
+
+
+	public Uci(PrintStream out) {
+		this.out = out;
+		fen = Fen.write(match);
+		newSearch();
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		Uci uci = new Uci(System.out);
+		BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+		String line;
+		while ((line = in.readLine()) != null) {
+			if (!uci.execute(line.trim())) {
+				break;
+			}
+		}
+		uci.stop();
+	}
+
+
+	//executa um comando; devolve false em "quit"
+	public boolean execute(String line) {
+		String[] words = line.split("\\s+");
+		switch (words[0]) {
+		case "uci":
+			send("id name " + NAME);
+			send("id author Webster Rodrigues");
+			send("option name Hash type spin default " + DEFAULT_HASH + " min 1 max " + MAX_HASH);
+			send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+			send("option name Ponder type check default false");
+			send("uciok");
+			break;
+		case "isready":
+			send("readyok");
+			break;
+		case "setoption":
+			stop();
+			setOption(words);
+			break;
+		case "ucinewgame":
+			stop();
+			search.getTable().clear();
+			setPosition("startpos", new String[0]);
+			break;
+		case "position":
+			stop();
+			position(words);
+			break;
+		case "go":
+			stop();
+			try {
+				go(words);
+			}
+			catch (NumberFormatException e) {
+				send("info string parâmetro inválido: " + line);
+			}
+			break;
+		case "stop":
+			stop();
+			break;
+		case "ponderhit":
+			ponderHit();
+			break;
+		case "d":
+			send(fen);
+			break;
+		case "quit":
+			return false;
+		default:
+			if (!line.isEmpty()) {
+				send("info string comando desconhecido: " + line);
+			}
+		}
+		return true;
+	}
+
+
+	//setoption name <nome> value <valor>
+	private void setOption(String[] words) {
+		int nameAt = Arrays.asList(words).indexOf("name");
+		int valueAt = Arrays.asList(words).indexOf("value");
+		if (nameAt < 0 || valueAt < 0 || valueAt + 1 >= words.length) {
+			return;
+		}
+		String name = String.join(" ", Arrays.copyOfRange(words, nameAt + 1, valueAt));
+		try {
+			int value = Integer.parseInt(words[valueAt + 1]);
+			if (name.equalsIgnoreCase("Hash")) {
+				hash = Math.max(1, Math.min(MAX_HASH, value));
+				newSearch();
+			}
+			else if (name.equalsIgnoreCase("Threads")) {
+				threads = Math.max(1, Math.min(MAX_THREADS, value));
+				newSearch();
+			}
+		}
+		catch (NumberFormatException e) {
+			//Ponder e opções desconhecidas não mudam nada aqui
+		}
+	}
+
+
+	private void newSearch() {
+		search = new ParallelSearch(threads, new TranspositionTable(hash));
+		search.setListener(this::info);
+	}
+
+
+	//position startpos|fen <fen> [moves <lance>...]
+	private void position(String[] words) {
+		int movesAt = Arrays.asList(words).indexOf("moves");
+		int end = (movesAt < 0) ? words.length : movesAt;
+		String newBase;
+		if (words.length > 1 && words[1].equals("fen")) {
+			newBase = String.join(" ", Arrays.copyOfRange(words, 2, end));
+		}
+		else {
+			newBase = "startpos";
+		}
+		String[] moves = (movesAt < 0) ? new String[0] : Arrays.copyOfRange(words, movesAt + 1, words.length);
+		setPosition(newBase, moves);
+	}
+
+
+	private void setPosition(String newBase, String[] moves) {
+		//mesma base: desfaz só os lances que mudaram e joga os novos
+		int common = 0;
+		if (newBase.equals(base)) {
+			while (common < played.size() && common < moves.length && played.get(common).equals(moves[common])) {
+				common++;
+			}
+			while (played.size() > common) {
+				match.undoMove(playedMoves.remove(playedMoves.size() - 1));
+				played.remove(played.size() - 1);
+			}
+		}
+		else {
+			try {
+				match = newBase.equals("startpos") ? new ChessMatch() : Fen.parse(newBase);
+			}
+			catch (ChessException e) {
+				send("info string " + e.getMessage());
+				match = new ChessMatch();
+				newBase = "startpos";
+			}
+			base = newBase;
+			played.clear();
+			playedMoves.clear();
+		}
+		for (int i = common; i < moves.length; i++) {
+			int move = parseMove(moves[i]);
+			if (move == Move.NONE) {
+				send("info string lance ilegal: " + moves[i]);
+				break;
+			}
+			match.doMove(move);
+			played.add(moves[i]);
+			playedMoves.add(move);
+		}
+		fen = Fen.write(match);
+	}
+
+
+	//lance em notação de coordenadas (e2e4, e7e8q), ou Move.NONE se não for legal
+	private int parseMove(String text) {
+		if (text.length() < 4 || text.length() > 5) {
+			return Move.NONE;
+		}
+		int from = square(text.charAt(0), text.charAt(1));
+		int to = square(text.charAt(2), text.charAt(3));
+		if (from < 0 || to < 0 || match.getBoard().piece(from) == null) {
+			return Move.NONE;
+		}
+		PieceType promotion = null;
+		if (text.length() == 5) {
+			int index = "nbrq".indexOf(text.charAt(4));
+			if (index < 0) {
+				return Move.NONE;
+			}
+			promotion = TYPES[index + 1];
+		}
+		int move = Move.decode(match.getBoard(), from, to, promotion);
+		match.legalMoves(legal);
+		return legal.contains(move) ? move : Move.NONE;
+	}
+
+
+	private static int square(char column, char row) {
+		if (column < 'a' || column > 'h' || row < '1' || row > '8') {
+			return -1;
+		}
+		return ('8' - row) * 8 + (column - 'a');
+	}
+
+
+	//go [wtime <ms>] [btime <ms>] [winc <ms>] [binc <ms>] [movestogo <n>] [depth <n>] [nodes <n>]
+	//   [movetime <ms>] [infinite] [ponder]
+	private void go(String[] words) {
+		SearchLimits limits = new SearchLimits();
+		boolean white = match.getCurrentPlayer() == Color.WHITE;
+		boolean infinite = false;
+		boolean ponder = false;
+		for (int i = 1; i < words.length; i++) {
+			String value = (i + 1 < words.length) ? words[i + 1] : "0";
+			switch (words[i]) {
+			case "wtime": if (white) limits.setTime(Long.parseLong(value)); i++; break;
+			case "btime": if (!white) limits.setTime(Long.parseLong(value)); i++; break;
+			case "winc": if (white) limits.setIncrement(Long.parseLong(value)); i++; break;
+			case "binc": if (!white) limits.setIncrement(Long.parseLong(value)); i++; break;
+			case "movestogo": limits.setMovesToGo(Integer.parseInt(value)); i++; break;
+			case "depth": limits.setDepth(Math.max(1, Math.min(Engine.MAX_PLY - 1, Integer.parseInt(value)))); i++; break;
+			case "nodes": limits.setNodes(Long.parseLong(value)); i++; break;
+			case "movetime": limits.setMoveTime(Long.parseLong(value)); i++; break;
+			case "infinite": infinite = true; break;
+			case "ponder": ponder = true; break;
+			default: break;
+			}
+		}
+
+		token = new CancellationToken();
+		SearchLimits searchLimits = limits;
+		ponderLimits = null;
+		if (ponder) {
+			//enquanto o adversário pensa, busca sem tempo; o relógio passa a valer no ponderhit
+			ponderLimits = limits;
+			searchLimits = new SearchLimits();
+			searchLimits.setDepth(limits.getDepth());
+			searchLimits.setNodes(limits.getNodes());
+		}
+		else if (infinite) {
+			searchLimits = new SearchLimits();
+		}
+		searchLimits.setToken(token);
+		release = new CountDownLatch((ponder || infinite) ? 1 : 0);
+
+		ChessMatch position = match;
+		SearchLimits searching = searchLimits;
+		CountDownLatch waitFor = release;
+		worker = new Thread(() -> {
+			SearchResult result = search.search(position, searching);
+			try {
+				waitFor.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			bestMove(result);
+		}, "uci-search");
+		worker.start();
+	}
+
+
+	//o lance do adversário foi o previsto: a busca de ponder continua, agora com o tempo do relógio
+	private void ponderHit() {
+		if (worker == null || ponderLimits == null) {
+			return;
+		}
+		//o relógio começa agora: o limite rígido interrompe a busca no meio e o tempo ideal só impede
+		//começar outra iteração. Com movetime só há o limite rígido (a busca usa todo o tempo)
+		TimeManager time = new TimeManager(ponderLimits, System.nanoTime());
+		token.setDeadline(time.getDeadline());
+		token.setIterationDeadline(time.getIterationDeadline());
+		ponderLimits = null;
+		release.countDown();
+	}
+
+
+	//interrompe a busca em andamento e espera o bestmove
+	private void stop() {
+		if (worker == null) {
+			return;
+		}
+		token.cancel();
+		release.countDown();
+		try {
+			worker.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		worker = null;
+		ponderLimits = null;
+	}
+
+
+	private void info(SearchResult result) {
+		StringBuilder sb = new StringBuilder("info depth ").append(result.getDepth());
+		sb.append(result.isMate() ? " score mate " + result.getMateIn() : " score cp " + result.getScore());
+		sb.append(" nodes ").append(result.getNodes()).append(" nps ").append(result.getNodesPerSecond());
+		sb.append(" time ").append(result.getMillis()).append(" pv");
+		for (int move : result.getPrincipalVariation()) {
+			sb.append(' ').append(Move.toString(move));
+		}
+		send(sb.toString());
+	}
+
+
+	private void bestMove(SearchResult result) {
+		if (result == null || result.getBestMove() == Move.NONE) {
+			send("bestmove 0000");
+			return;
+		}
+		int[] pv = result.getPrincipalVariation();
+		String line = "bestmove " + Move.toString(result.getBestMove());
+		if (pv.length > 1) {
+			line += " ponder " + Move.toString(pv[1]);
+		}
+		send(line);
+	}
+
+
+	private void send(String line) {
+		synchronized (out) {
+			out.println(line);
+			out.flush();
+		}
+	}
+
+}
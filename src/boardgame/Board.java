@@ -4,7 +4,8 @@ public class Board {
 	
 	private int rows;
 	private int columns;
-	private Piece [] [] pieces;
+	private Piece [] pieces;
+	private Position [] positions;
 	
 	
 	public Board(int rows, int columns) {
@@ -14,7 +15,15 @@ public class Board {
 		
 		this.rows = rows;
 		this.columns = columns;
-		pieces = new Piece [rows] [columns];
+		pieces = new Piece [rows * columns];
+
+		//posições criadas uma única vez e reaproveitadas pelas peças (uma por casa)
+		positions = new Position [rows * columns];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < columns; j++) {
+				positions[i * columns + j] = new Position(i, j);
+			}
+		}
 		
 	}
 
@@ -33,7 +42,7 @@ public class Board {
 		if(!positionExists(rows, columns)) {
 			throw new BoardException("Posição fora do tabuleiro");
 		}
-		return pieces [rows] [columns];
+		return pieces [rows * this.columns + columns];
 	}
 	
 	
@@ -41,7 +50,12 @@ public class Board {
 		if(!positionExists(position)) {
 			throw new BoardException("Posição fora do tabuleiro");
 		}
-		return pieces [position.getRow()] [position.getColumn()];
+		return pieces [square(position)];
+	}
+
+	//acesso direto pelo índice da casa (linha * colunas + coluna), sem checagem de limites
+	public Piece piece(int square) {
+		return pieces [square];
 	}
 	
 	
@@ -49,8 +63,13 @@ public class Board {
 		if(thereIsAPiece(position)) {
 			throw new BoardException("Já existe uma peça na posição " + position);
 		}
-		pieces[position.getRow()][position.getColumn()] = piece;
-		piece.position = position;
+		placePiece(piece, square(position));
+	}
+
+
+	public void placePiece(Piece piece, int square) {
+		pieces[square] = piece;
+		piece.position = positions[square];
 	}
 	
 	
@@ -63,12 +82,30 @@ public class Board {
 			return null;
 		}
 		
-		Piece aux = piece(position);
-		aux.position = null; //tirei a peça do tabuleiro
+		return removePiece(square(position));
 		
-		pieces[position.getRow()][position.getColumn()] = null;
+	}
+
+
+	public Piece removePiece(int square) {
+		Piece aux = pieces[square];
+		if (aux == null) {
+			return null;
+		}
+		aux.position = null; //tirei a peça do tabuleiro
+
+		pieces[square] = null;
 		return aux;
-		
+	}
+
+
+	public int square(Position position) {
+		return position.getRow() * columns + position.getColumn();
+	}
+
+
+	public Position position(int square) {
+		return positions[square];
 	}
 	
 	private boolean positionExists(int row, int column) {
@@ -0,0 +1,234 @@
+package chess;
+
+//tabelas de ataque pré-calculadas uma única vez, no carregamento da classe
+//cavalo, rei e peão: uma tabela por casa; torre e bispo: magic bitboards
+//(casa i = linha * 8 + coluna, linha 0 = fileira 8)
+public final class Attacks {
+
+	private static final long[] KNIGHT = new long[64];
+	private static final long[] KING = new long[64];
+	private static final long[][] PAWN = new long[2][64];
+
+	private static final long[] ROOK_MASK = new long[64];
+	private static final int[] ROOK_SHIFT = new int[64];
+	private static final long[][] ROOK_TABLE = new long[64][];
+
+	private static final long[] BISHOP_MASK = new long[64];
+	private static final int[] BISHOP_SHIFT = new int[64];
+	private static final long[][] BISHOP_TABLE = new long[64][];
+
+	//casas estritamente entre duas casas alinhadas e a linha inteira que passa pelas duas
+	private static final long[][] BETWEEN = new long[64][64];
+	private static final long[][] LINE = new long[64][64];
+
+	//magics encontradas uma vez por busca aleatória (xorshift com semente fixa) e fixadas aqui,
+	//para que a carga da classe só precise preencher as tabelas
+	private static final long[] ROOK_MAGIC = {
+			0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+			0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+			0x0000800080204001L, 0x1000804000802001L, 0x8240801000200080L, 0x8611001004200900L,
+			0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+			0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+			0x0001818014000800L, 0xA002010100080400L, 0x0008040088020130L, 0x0001020004048845L,
+			0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+			0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+			0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+			0x4540040080800800L, 0x0000800400800200L, 0x9281800100808200L, 0x8004048102000854L,
+			0x4420802040008006L, 0x0880500020004002L, 0x0801200241050010L, 0x8400080010008080L,
+			0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004L,
+			0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+			0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+			0x8044110480002441L, 0x1023012082044112L, 0x00804080200A0012L, 0x000420310A004A42L,
+			0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+	};
+
+	private static final long[] BISHOP_MAGIC = {
+			0x1010220204082A00L, 0x80E0020202002804L, 0x2008480104200020L, 0x000220920280002DL,
+			0x32040421000B0284L, 0x1002080404000400L, 0x0004160892080040L, 0x2203024206204201L,
+			0x0002404264010200L, 0x1120908408428124L, 0xB100424403002280L, 0x240008060440C288L,
+			0x2040040420490400L, 0x0100620210040022L, 0x0400084104202028L, 0x0010050080908820L,
+			0x0C90A04490824802L, 0x000200A008210130L, 0x0C08001000204010L, 0x0008000186014480L,
+			0x0601044820080021L, 0x0002000101013100L, 0x1400A08108080204L, 0x0250401104485410L,
+			0x4820240810142843L, 0x0009142A20182200L, 0x0848140048440020L, 0x2020120000400440L,
+			0x0108840200802003L, 0x0009070082009492L, 0x020C0C0038424245L, 0xCA44005808210410L,
+			0x8011212000500404L, 0x2028840510101008L, 0x0004042A00041400L, 0x0624020080980080L,
+			0x1820410040840040L, 0x2201004202050100L, 0x402A088A24040224L, 0x0242061040002400L,
+			0x90020202400821A0L, 0x00C9009004E01002L, 0x58C2060202023100L, 0x0000012214040800L,
+			0x0210846810100200L, 0x0004208081010200L, 0x01A4108404442100L, 0x8054082C80280106L,
+			0x0004144904104208L, 0x00324C0A11104000L, 0x1000020231040100L, 0x2080001042020004L,
+			0x0544021020288104L, 0x1103501408083020L, 0x4010451004960002L, 0x003010091C44902CL,
+			0x0102402884202000L, 0x0480804C00841086L, 0x04602C8602210400L, 0x0000004000420200L,
+			0x0040000020442C18L, 0x4483804089094100L, 0x80000B0248020400L, 0x0045010808008680L
+	};
+
+	private static final int[][] ROOK_DIRECTIONS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+	private static final int[][] BISHOP_DIRECTIONS = { { -1, -1 }, { -1, 1 }, { 1, -1 }, { 1, 1 } };
+	private static final int[][] KNIGHT_OFFSETS = { { -2, -1 }, { -2, 1 }, { -1, -2 }, { -1, 2 }, { 1, -2 }, { 1, 2 }, { 2, -1 }, { 2, 1 } };
+	private static final int[][] KING_OFFSETS = { { -1, -1 }, { -1, 0 }, { -1, 1 }, { 0, -1 }, { 0, 1 }, { 1, -1 }, { 1, 0 }, { 1, 1 } };
+
+	static {
+		for (int sq = 0; sq < 64; sq++) {
+			KNIGHT[sq] = offsets(sq, KNIGHT_OFFSETS);
+			KING[sq] = offsets(sq, KING_OFFSETS);
+			//peão branco sobe (linha - 1), peão preto desce (linha + 1)
+			PAWN[Color.WHITE.ordinal()][sq] = offsets(sq, new int[][] { { -1, -1 }, { -1, 1 } });
+			PAWN[Color.BLACK.ordinal()][sq] = offsets(sq, new int[][] { { 1, -1 }, { 1, 1 } });
+		}
+
+		for (int sq = 0; sq < 64; sq++) {
+			initLines(sq, ROOK_DIRECTIONS);
+			initLines(sq, BISHOP_DIRECTIONS);
+		}
+
+		for (int sq = 0; sq < 64; sq++) {
+			initMagic(sq, ROOK_DIRECTIONS, ROOK_MASK, ROOK_MAGIC, ROOK_SHIFT, ROOK_TABLE);
+			initMagic(sq, BISHOP_DIRECTIONS, BISHOP_MASK, BISHOP_MAGIC, BISHOP_SHIFT, BISHOP_TABLE);
+		}
+	}
+
+
+	private Attacks() {
+	}
+
+
+	public static long knight(int square) {
+		return KNIGHT[square];
+	}
+
+
+	public static long king(int square) {
+		return KING[square];
+	}
+
+
+	//casas atacadas por um peão da cor informada (não inclui o avanço)
+	public static long pawn(Color color, int square) {
+		return PAWN[color.ordinal()][square];
+	}
+
+
+	public static long rook(int square, long occupied) {
+		return ROOK_TABLE[square][(int) (((occupied & ROOK_MASK[square]) * ROOK_MAGIC[square]) >>> ROOK_SHIFT[square])];
+	}
+
+
+	public static long bishop(int square, long occupied) {
+		return BISHOP_TABLE[square][(int) (((occupied & BISHOP_MASK[square]) * BISHOP_MAGIC[square]) >>> BISHOP_SHIFT[square])];
+	}
+
+
+	public static long queen(int square, long occupied) {
+		return rook(square, occupied) | bishop(square, occupied);
+	}
+
+
+	public static long between(int from, int to) {
+		return BETWEEN[from][to];
+	}
+
+
+	public static long line(int from, int to) {
+		return LINE[from][to];
+	}
+
+
+	private static void initLines(int square, int[][] directions) {
+		for (int[] d : directions) {
+			long ray = 0L;
+			int r = (square >>> 3) + d[0];
+			int c = (square & 7) + d[1];
+			while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+				int to = r * 8 + c;
+				BETWEEN[square][to] = ray;
+				ray |= 1L << to;
+				r += d[0];
+				c += d[1];
+			}
+			//a linha completa é o raio nos dois sentidos mais a própria casa
+			long full = ray | slidingAttacks(square, 0L, new int[][] { { -d[0], -d[1] } }) | (1L << square);
+			long rest = ray;
+			while (rest != 0) {
+				LINE[square][Long.numberOfTrailingZeros(rest)] = full;
+				rest &= rest - 1;
+			}
+		}
+	}
+
+
+	private static long offsets(int square, int[][] offsets) {
+		int row = square >>> 3;
+		int column = square & 7;
+		long result = 0L;
+		for (int[] o : offsets) {
+			int r = row + o[0];
+			int c = column + o[1];
+			if (r >= 0 && r < 8 && c >= 0 && c < 8) {
+				result |= 1L << (r * 8 + c);
+			}
+		}
+		return result;
+	}
+
+
+	//ataque de peça deslizante calculado casa a casa (usado apenas para montar as tabelas)
+	private static long slidingAttacks(int square, long occupied, int[][] directions) {
+		long result = 0L;
+		for (int[] d : directions) {
+			int r = (square >>> 3) + d[0];
+			int c = (square & 7) + d[1];
+			while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+				long bit = 1L << (r * 8 + c);
+				result |= bit;
+				if ((occupied & bit) != 0) {
+					break;
+				}
+				r += d[0];
+				c += d[1];
+			}
+		}
+		return result;
+	}
+
+
+	//casas cuja ocupação influencia o ataque (a última casa de cada raio nunca bloqueia nada)
+	private static long relevantMask(int square, int[][] directions) {
+		long result = 0L;
+		for (int[] d : directions) {
+			int r = (square >>> 3) + d[0];
+			int c = (square & 7) + d[1];
+			while (r + d[0] >= 0 && r + d[0] < 8 && c + d[1] >= 0 && c + d[1] < 8) {
+				result |= 1L << (r * 8 + c);
+				r += d[0];
+				c += d[1];
+			}
+		}
+		return result;
+	}
+
+
+	private static void initMagic(int square, int[][] directions, long[] masks, long[] magics, int[] shifts, long[][] tables) {
+		long mask = relevantMask(square, directions);
+		int bits = Long.bitCount(mask);
+		long magic = magics[square];
+		long[] table = new long[1 << bits];
+		boolean[] used = new boolean[1 << bits];
+
+		//percorre todos os subconjuntos da máscara (carry-rippler)
+		long subset = 0L;
+		do {
+			int index = (int) ((subset * magic) >>> (64 - bits));
+			long attacks = slidingAttacks(square, subset, directions);
+			if (used[index] && table[index] != attacks) {
+				throw new IllegalStateException("Magic inválida para a casa " + square);
+			}
+			used[index] = true;
+			table[index] = attacks;
+			subset = (subset - mask) & mask;
+		} while (subset != 0);
+
+		masks[square] = mask;
+		shifts[square] = 64 - bits;
+		tables[square] = table;
+	}
+
+}
@@ -0,0 +1,119 @@
+package chess;
+
+import boardgame.Board;
+import boardgame.Piece;
+
+//tabuleiro 8x8 que, além da matriz de peças, mantém um bitboard (long) por tipo e cor de peça
+//bit i = casa i, com i = linha * 8 + coluna (linha 0 = fileira 8, coluna 0 = coluna A)
+public class ChessBoard extends Board {
+
+	private long[] bitboards = new long[12];
+	private long[] colorBitboards = new long[2];
+	private long occupied;
+	private long hash;
+
+	//termos da avaliação mantidos a cada peça colocada ou retirada (ver PieceSquareTables)
+	private int middlegame;
+	private int endgame;
+	private int phase;
+
+
+	public ChessBoard() {
+		super(8, 8);
+	}
+
+
+	public static int index(Color color, PieceType type) {
+		return color.ordinal() * 6 + type.ordinal();
+	}
+
+
+	public long pieces(Color color, PieceType type) {
+		return bitboards[index(color, type)];
+	}
+
+
+	public long pieces(Color color) {
+		return colorBitboards[color.ordinal()];
+	}
+
+
+	public long occupied() {
+		return occupied;
+	}
+
+
+	//parte do hash de Zobrist que depende apenas da disposição das peças
+	public long getHash() {
+		return hash;
+	}
+
+
+	//material + tabelas peça-casa de meio-jogo, do ponto de vista das brancas
+	public int getMiddlegameScore() {
+		return middlegame;
+	}
+
+
+	public int getEndgameScore() {
+		return endgame;
+	}
+
+
+	//soma de PieceSquareTables.PHASE_WEIGHTS das peças em jogo (pode passar de MAX_PHASE com promoções)
+	public int getPhase() {
+		return phase;
+	}
+
+
+	//bitboard com todas as peças da cor "by" que atacam a casa informada
+	public long attackersTo(int square, Color by, long occupied) {
+		Color other = (by == Color.WHITE) ? Color.BLACK : Color.WHITE;
+		long queens = pieces(by, PieceType.QUEEN);
+		return (Attacks.pawn(other, square) & pieces(by, PieceType.PAWN))
+				| (Attacks.knight(square) & pieces(by, PieceType.KNIGHT))
+				| (Attacks.king(square) & pieces(by, PieceType.KING))
+				| (Attacks.bishop(square, occupied) & (pieces(by, PieceType.BISHOP) | queens))
+				| (Attacks.rook(square, occupied) & (pieces(by, PieceType.ROOK) | queens));
+	}
+
+
+	public boolean isAttacked(int square, Color by) {
+		return attackersTo(square, by, occupied) != 0;
+	}
+
+
+	@Override
+	public void placePiece(Piece piece, int square) {
+		super.placePiece(piece, square);
+		ChessPiece p = (ChessPiece) piece;
+		long bit = 1L << square;
+		int index = index(p.getColor(), p.getType());
+		bitboards[index] |= bit;
+		hash ^= Zobrist.piece(index, square);
+		middlegame += PieceSquareTables.middlegame(index, square);
+		endgame += PieceSquareTables.endgame(index, square);
+		phase += PieceSquareTables.PHASE_WEIGHTS[p.getType().ordinal()];
+		colorBitboards[p.getColor().ordinal()] |= bit;
+		occupied |= bit;
+	}
+
+
+	@Override
+	public Piece removePiece(int square) {
+		ChessPiece p = (ChessPiece) super.removePiece(square);
+		if (p != null) {
+			long bit = ~(1L << square);
+			int index = index(p.getColor(), p.getType());
+			bitboards[index] &= bit;
+			hash ^= Zobrist.piece(index, square);
+			middlegame -= PieceSquareTables.middlegame(index, square);
+			endgame -= PieceSquareTables.endgame(index, square);
+			phase -= PieceSquareTables.PHASE_WEIGHTS[p.getType().ordinal()];
+			colorBitboards[p.getColor().ordinal()] &= bit;
+			occupied &= bit;
+		}
+		return p;
+	}
+
+}
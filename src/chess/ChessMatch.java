@@ -2,12 +2,14 @@ package chess;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 
 
-import boardgame.Board;
 import boardgame.Piece;
 import boardgame.Position;
 import chess.pieces.Bishop;
@@ -19,24 +21,205 @@ import chess.pieces.Rook;
 
 public class ChessMatch {
 	
+	//direitos de roque (bits de castlingRights)
+	public static final int WHITE_KINGSIDE = 1;
+	public static final int WHITE_QUEENSIDE = 2;
+	public static final int BLACK_KINGSIDE = 4;
+	public static final int BLACK_QUEENSIDE = 8;
+	
 	private int turn;
-	private Board board;
+	private ChessBoard board;
 	private Color currentPlayer;
 	private boolean check;
 	private boolean checkMate;
+	//afogamento: sem movimento legal e sem estar em check (empate)
+	private boolean stalemate;
 	private ChessPiece enPassantVulnerable;
 	private ChessPiece promoted;
+	private int castlingRights;
+	
+	//parte do hash de Zobrist que não depende das peças: vez de jogar, roques e en passant
+	//(a parte das peças é mantida pelo ChessBoard a cada peça colocada ou retirada)
+	private long stateHash;
+	private long enPassantHash;
 	
-	private List<Piece> piecesOnTheBoard = new ArrayList<>();
+	//rei de cada cor (as demais peças são lidas dos bitboards do ChessBoard)
+	private Map<Color, ChessPiece> kings = new EnumMap<>(Color.class);
 	private List<Piece> capturedPieces = new ArrayList<>();
 	
+	//buffer reaproveitado na geração de movimentos e pilha dos peões retirados nas promoções
+	private MoveBuffer moveBuffer = new MoveBuffer();
+	private ChessPiece[] promotedPawns = new ChessPiece[8];
+	private int promotedPawnCount;
+	
+	//estado guardado por doMove(int) para que undoMove(int) restaure a posição anterior
+	private Piece[] capturedHistory = new Piece[64];
+	private ChessPiece[] enPassantHistory = new ChessPiece[64];
+	private int[] turnHistory = new int[64];
+	private int[] halfMoveHistory = new int[64];
+	private long[] hashHistory = new long[64];
+	private int[] moveHistory = new int[64];
+	private int historySize;
+	
+	//posição em que a partida começou (null = posição inicial padrão)
+	private ChessSnapshot initialPosition;
+	
+	//lances desde a última captura ou movimento de peão (regra dos 50 lances e repetições)
+	private int halfMoveClock;
+	
 	
 	
 	public ChessMatch() {
-		board = new Board (8, 8);
+		board = new ChessBoard();
 		turn = 1;
 		currentPlayer = Color.WHITE;
 		initialSetup();
+		castlingRights = computeCastlingRights();
+		stateHash = Zobrist.castling(castlingRights);
+	}
+	
+	//cópia independente da partida (peças e tabuleiro próprios), para buscas em paralelo
+	//o histórico vem junto: a cópia reconhece repetições e também desfaz os movimentos anteriores a ela
+	public ChessMatch copy() {
+		return new ChessMatch(this);
+	}
+	
+	private ChessMatch(ChessMatch other) {
+		board = new ChessBoard();
+		//peça da partida original -> sua cópia, para refazer as referências do histórico
+		Map<Piece, ChessPiece> copies = new IdentityHashMap<>();
+		for (int square = 0; square < 64; square++) {
+			ChessPiece p = (ChessPiece) other.board.piece(square);
+			if (p != null) {
+				ChessPiece newPiece = copyPiece(p);
+				copies.put(p, newPiece);
+				board.placePiece(newPiece, square);
+				registerKing(newPiece);
+			}
+		}
+		for (Piece p : other.capturedPieces) {
+			capturedPieces.add(copyOf(copies, p));
+		}
+		promotedPawns = new ChessPiece[other.promotedPawns.length];
+		promotedPawnCount = other.promotedPawnCount;
+		for (int i = 0; i < promotedPawnCount; i++) {
+			promotedPawns[i] = copyOf(copies, other.promotedPawns[i]);
+		}
+		turn = other.turn;
+		currentPlayer = other.currentPlayer;
+		check = other.check;
+		checkMate = other.checkMate;
+		stalemate = other.stalemate;
+		castlingRights = other.castlingRights;
+		stateHash = other.stateHash;
+		enPassantHash = other.enPassantHash;
+		halfMoveClock = other.halfMoveClock;
+		if (other.enPassantVulnerable != null) {
+			enPassantVulnerable = (ChessPiece) board.piece(other.enPassantVulnerable.getSquare());
+		}
+		if (other.promoted != null) {
+			promoted = (ChessPiece) board.piece(other.promoted.getSquare());
+		}
+		
+		historySize = other.historySize;
+		int capacity = Math.max(64, historySize * 2);
+		capturedHistory = new Piece[capacity];
+		enPassantHistory = new ChessPiece[capacity];
+		for (int i = 0; i < historySize; i++) {
+			capturedHistory[i] = copyOf(copies, other.capturedHistory[i]);
+			enPassantHistory[i] = copyOf(copies, other.enPassantHistory[i]);
+		}
+		turnHistory = Arrays.copyOf(other.turnHistory, capacity);
+		halfMoveHistory = Arrays.copyOf(other.halfMoveHistory, capacity);
+		hashHistory = Arrays.copyOf(other.hashHistory, capacity);
+		moveHistory = Arrays.copyOf(other.moveHistory, capacity);
+		initialPosition = other.initialPosition;
+	}
+	
+	//cópia da peça, feita uma só vez: as do tabuleiro já estão no mapa, as capturadas e os peões promovidos entram aqui
+	private ChessPiece copyOf(Map<Piece, ChessPiece> copies, Piece piece) {
+		if (piece == null) {
+			return null;
+		}
+		ChessPiece copy = copies.get(piece);
+		if (copy == null) {
+			copy = copyPiece((ChessPiece) piece);
+			copies.put(piece, copy);
+		}
+		return copy;
+	}
+	
+	//posição atual como valor imutável (ver ChessSnapshot)
+	public ChessSnapshot snapshot() {
+		byte[] squares = new byte[64];
+		long occupied = board.occupied();
+		while (occupied != 0) {
+			int square = Long.numberOfTrailingZeros(occupied);
+			ChessPiece p = (ChessPiece) board.piece(square);
+			squares[square] = (byte) (ChessBoard.index(p.getColor(), p.getType()) + 1);
+			occupied &= occupied - 1;
+		}
+		int enPassant = (enPassantVulnerable == null) ? -1 : enPassantVulnerable.getSquare();
+		return new ChessSnapshot(squares, currentPlayer, castlingRights, enPassant, turn, halfMoveClock, getPositionHash());
+	}
+	
+	//partida nova na posição da fotografia, sem histórico de movimentos anteriores
+	//(os movimentos das peças são deduzidos: rei e torres com direito de roque e peões na fileira inicial não se moveram)
+	public static ChessMatch fromSnapshot(ChessSnapshot snapshot) {
+		return new ChessMatch(snapshot);
+	}
+	
+	private ChessMatch(ChessSnapshot snapshot) {
+		board = new ChessBoard();
+		int rights = snapshot.getCastlingRights();
+		for (int square = 0; square < 64; square++) {
+			Color color = snapshot.getColor(square);
+			if (color == null) {
+				continue;
+			}
+			PieceType type = snapshot.getType(square);
+			ChessPiece p;
+			if (type == PieceType.KING) p = new King(board, color, this);
+			else if (type == PieceType.PAWN) p = new Pawn(board, color, this);
+			else p = newPiece(type, color);
+			
+			boolean unmoved;
+			if (type == PieceType.KING) {
+				unmoved = (rights & (color == Color.WHITE ? WHITE_KINGSIDE | WHITE_QUEENSIDE : BLACK_KINGSIDE | BLACK_QUEENSIDE)) != 0;
+			}
+			else if (type == PieceType.ROOK) {
+				unmoved = (square == 63 && (rights & WHITE_KINGSIDE) != 0) || (square == 56 && (rights & WHITE_QUEENSIDE) != 0)
+						|| (square == 7 && (rights & BLACK_KINGSIDE) != 0) || (square == 0 && (rights & BLACK_QUEENSIDE) != 0);
+			}
+			else if (type == PieceType.PAWN) {
+				unmoved = (square >>> 3) == (color == Color.WHITE ? 6 : 1);
+			}
+			else {
+				unmoved = true;
+			}
+			p.setMoveCount(unmoved ? 0 : 1);
+			board.placePiece(p, square);
+			registerKing(p);
+		}
+		if (kings.get(Color.WHITE) == null || kings.get(Color.BLACK) == null) {
+			throw new ChessException("Posição inválida: cada jogador precisa ter um rei");
+		}
+		
+		turn = snapshot.getTurn();
+		currentPlayer = snapshot.getCurrentPlayer();
+		halfMoveClock = snapshot.getHalfMoveClock();
+		castlingRights = computeCastlingRights();
+		stateHash = Zobrist.castling(castlingRights);
+		if (currentPlayer == Color.BLACK) {
+			stateHash ^= Zobrist.side();
+		}
+		if (snapshot.getEnPassantSquare() >= 0) {
+			setEnPassantVulnerable((ChessPiece) board.piece(snapshot.getEnPassantSquare()));
+		}
+		check = testCheck(currentPlayer);
+		checkMate = testCheckMate(currentPlayer);
+		stalemate = !check && !hasLegalMove();
+		initialPosition = snapshot();
 	}
 	
 	public boolean getCheck() {
@@ -47,11 +230,15 @@ public class ChessMatch {
 		return checkMate;
 	}
 	
+	public boolean getStalemate() {
+		return stalemate;
+	}
+	
 	public ChessPiece[][] getPieces(){
 		ChessPiece [][] matriz = new ChessPiece[board.getRows()] [board.getColumns()];
-		for(int i = 0; i < board.getColumns(); i++) {
-			for(int j = 0; j < board.getRows(); j++) {
-				matriz [i][j] = (ChessPiece) board.piece(i, j);
+		for(int i = 0; i < board.getRows(); i++) {
+			for(int j = 0; j < board.getColumns(); j++) {
+				matriz [i][j] = (ChessPiece) board.piece(i * board.getColumns() + j);
 			}
 		}
 		
@@ -74,55 +261,206 @@ public class ChessMatch {
 	public Color getCurrentPlayer() {
 		return currentPlayer;
 	}
+	
+	public ChessBoard getBoard() {
+		return board;
+	}
+	
+	public int getCastlingRights() {
+		return castlingRights;
+	}
+	
+	//hash de Zobrist de 64 bits da posição atual, atualizado incrementalmente a cada movimento
+	public long getPositionHash() {
+		return board.getHash() ^ stateHash;
+	}
+	
+	//movimentos jogados desde o início da partida, codificados (ver Move)
+	public int[] getMoves() {
+		return Arrays.copyOf(moveHistory, historySize);
+	}
+	
+	//posição em que a partida começou, ou null se foi a posição inicial padrão
+	public ChessSnapshot getInitialPosition() {
+		return initialPosition;
+	}
 
 	public boolean [][] possibleMoves(ChessPosition sourcePosition){
 		Position position = sourcePosition.toPosition();
 		validateSourcePosition(position);
-		return board.piece(position).possibleMoves();
+		boolean[][] matriz = new boolean[board.getRows()][board.getColumns()];
+		long targets = legalTargets(board.square(position));
+		while (targets != 0) {
+			int square = Long.numberOfTrailingZeros(targets);
+			matriz[square >>> 3][square & 7] = true;
+			targets &= targets - 1;
+		}
+		return matriz;
 	}
 	
-	public ChessPiece performChessMove(ChessPosition sourcePosition, ChessPosition targetPosition) {
-		Position source = sourcePosition.toPosition();
-		Position target = targetPosition.toPosition();
-		validateSourcePosition(source);
-		validateTargetPosition(source, target);
-		Piece capturedPiece = makeMove(source, target);
-		
-		if (testCheck(currentPlayer)) {
-			undoMove(source, target, capturedPiece);
-			throw new ChessException("Você não pode se colcoar em check!!");
+	//movimentos legais do jogador atual, codificados (ver Move)
+	public MoveBuffer legalMoves() {
+		MoveBuffer buffer = new MoveBuffer();
+		legalMoves(buffer);
+		return buffer;
+	}
+	
+	public void legalMoves(MoveBuffer buffer) {
+		buffer.clear();
+		MoveGenerator.generate(board, currentPlayer, enPassantSquare(currentPlayer), buffer);
+	}
+	
+	//joga um movimento legal codificado (ver Move), sem validação, para busca e análise
+	//(nas promoções a peça vem no próprio movimento; não altera check/checkMate)
+	public void doMove(int move) {
+		if (historySize == capturedHistory.length) {
+			capturedHistory = Arrays.copyOf(capturedHistory, historySize * 2);
+			enPassantHistory = Arrays.copyOf(enPassantHistory, historySize * 2);
+			turnHistory = Arrays.copyOf(turnHistory, historySize * 2);
+			halfMoveHistory = Arrays.copyOf(halfMoveHistory, historySize * 2);
+			hashHistory = Arrays.copyOf(hashHistory, historySize * 2);
+			moveHistory = Arrays.copyOf(moveHistory, historySize * 2);
 		}
+		enPassantHistory[historySize] = enPassantVulnerable;
+		turnHistory[historySize] = turn;
+		halfMoveHistory[historySize] = halfMoveClock;
+		hashHistory[historySize] = getPositionHash();
+		moveHistory[historySize] = move;
+		boolean pawnMove = board.piece(Move.from(move)) instanceof Pawn;
+		capturedHistory[historySize] = makeMove(move);
+		halfMoveClock = (pawnMove || capturedHistory[historySize] != null) ? 0 : halfMoveClock + 1;
+		historySize++;
 		
-		ChessPiece movedPiece = (ChessPiece) board.piece(target);
-		
-		//#SpecialMove promotion
-		promoted = null;
+		setEnPassantVulnerable(Move.flags(move) == Move.DOUBLE_PAWN_PUSH ? (ChessPiece) board.piece(Move.to(move)) : null);
+		nextTurn();
+	}
+	
+	//desfaz o último movimento feito por doMove(int)
+	public void undoMove(int move) {
+		historySize--;
+		undoMove(move, capturedHistory[historySize]);
+		capturedHistory[historySize] = null;
 		
-		if(movedPiece instanceof Pawn) {
-			if((movedPiece.getColor() == Color.WHITE && target.getRow() == 0) || (movedPiece.getColor() == Color.BLACK && target.getRow() == 7 )) {
-				promoted = (ChessPiece)board.piece(target);
-				promoted = replacePromotedPiece("Q");
+		//a vez volta para o dono da peça movida (após um xeque-mate a vez não tinha sido passada)
+		Color mover = ((ChessPiece) board.piece(Move.from(move))).getColor();
+		if (mover != currentPlayer) {
+			currentPlayer = mover;
+			stateHash ^= Zobrist.side();
+		}
+		turn = turnHistory[historySize];
+		halfMoveClock = halfMoveHistory[historySize];
+		setEnPassantVulnerable(enPassantHistory[historySize]);
+		enPassantHistory[historySize] = null;
+	}
 	
+	//se o jogador da vez está em check na posição atual
+	public boolean isInCheck() {
+		return testCheck(currentPlayer);
+	}
+	
+	//se a posição atual já ocorreu antes com o mesmo jogador da vez (desde o último lance irreversível)
+	public boolean isRepetition() {
+		long hash = getPositionHash();
+		int limit = Math.max(0, historySize - halfMoveClock);
+		for (int i = historySize - 2; i >= limit; i -= 2) {
+			if (hashHistory[i] == hash) {
+				return true;
 			}
 		}
-
-		check = (testCheck(opponent(currentPlayer))) ? true : false;
-
-		if (testCheckMate(opponent(currentPlayer))) {
-			checkMate = true;
+		return false;
+	}
+	
+	public int getHalfMoveClock() {
+		return halfMoveClock;
+	}
+	
+	//se o jogador da vez está em xeque-mate na posição atual
+	public boolean isCheckMate() {
+		return testCheckMate(currentPlayer);
+	}
+	
+	//versão com exceção de tryMove, usada pela interface de console
+	public ChessPiece performChessMove(ChessPosition sourcePosition, ChessPosition targetPosition) {
+		Position source = sourcePosition.toPosition();
+		Position target = targetPosition.toPosition();
+		MoveResult result = tryMove(board.square(source), board.square(target));
+		if (!result.isOk()) {
+			throw new ChessException(result.getMessage());
 		}
-		else {
-			nextTurn();
+		return (ChessPiece) capturedHistory[historySize - 1];
+	}
+	
+	public MoveResult tryMove(ChessPosition sourcePosition, ChessPosition targetPosition) {
+		return tryMove(board.square(sourcePosition.toPosition()), board.square(targetPosition.toPosition()));
+	}
+	
+	//nas promoções, a rainha
+	public MoveResult tryMove(int source, int target) {
+		return tryMove(source, target, PieceType.QUEEN);
+	}
+	
+	//valida e joga o movimento entre as casas informadas (0 a 63, ver Board.square); lances ilegais
+	//devolvem o motivo em vez de lançar exceção, para servidores que recebem muitos lances inválidos.
+	//promotion é a peça escolhida quando um peão chega à última fileira (null, peão ou rei valem como rainha)
+	public MoveResult tryMove(int source, int target, PieceType promotion) {
+		if (promotion == null || promotion == PieceType.PAWN || promotion == PieceType.KING) {
+			promotion = PieceType.QUEEN;
 		}
-		//SpecialMove en passant
-		if(movedPiece instanceof Pawn && (target.getRow() == source.getRow() -2 || target.getRow() == source.getRow() + 2)) {
-			enPassantVulnerable = movedPiece;
+		if (source < 0 || source >= 64 || target < 0 || target >= 64) {
+			return MoveResult.INVALID_SQUARE;
 		}
-		else {
-			enPassantVulnerable = null;
+		if (checkMate || stalemate) {
+			return MoveResult.GAME_OVER;
 		}
+		MoveResult result = validateSource(source);
+		if (result != MoveResult.OK) {
+			return result;
+		}
+		//validateSource deixou os movimentos legais em moveBuffer; nas promoções, vale o da peça escolhida
+		int move = Move.NONE;
+		for (int i = 0; i < moveBuffer.size(); i++) {
+			int m = moveBuffer.get(i);
+			if (Move.from(m) == source && Move.to(m) == target && (!Move.isPromotion(m) || Move.promotionType(m) == promotion)) {
+				move = m;
+				break;
+			}
+		}
+		if (move == Move.NONE) {
+			ChessPiece piece = (ChessPiece) board.piece(source);
+			//roque: quem decide é o gerador (sem check, sem passar nem parar em casa atacada);
+			//King.moves() só olha o check guardado da partida, então não serve para classificar
+			if (piece.getType() == PieceType.KING && Math.abs(target - source) == 2) {
+				return MoveResult.ILLEGAL_TARGET;
+			}
+			return ((piece.moves() & (1L << target)) != 0) ? MoveResult.SELF_CHECK : MoveResult.ILLEGAL_TARGET;
+		}
+		doMove(move);
 		
-		return (ChessPiece)capturedPiece;
+		//#SpecialMove promotion (makeMove já colocou a peça escolhida no lugar do peão)
+		promoted = Move.isPromotion(move) ? (ChessPiece) board.piece(target) : null;
+		updateCheck();
+		return MoveResult.OK;
+	}
+	
+	//check, xeque-mate e afogamento do jogador da vez, depois de um lance jogado pela interface
+	private void updateCheck() {
+		check = testCheck(currentPlayer);
+		stalemate = false;
+
+		if (!hasLegalMove()) {
+			if (check) {
+				checkMate = true;
+				previousTurn(); //a vez fica com o vencedor
+			}
+			else {
+				stalemate = true;
+			}
+		}
+	}
+	
+	private boolean hasLegalMove() {
+		legalMoves(moveBuffer);
+		return moveBuffer.size() > 0;
 	}
 	
 	public ChessPiece  replacePromotedPiece (String type) {
@@ -134,13 +472,22 @@ public class ChessMatch {
 		}
 		
 		Position pos = promoted.getChessPosition().toPosition();
-		Piece p = board.removePiece(pos);
-		piecesOnTheBoard.remove(p);
+		board.removePiece(pos);
 		
 		ChessPiece newPiece = newPiece(type, promoted.getColor());
 		board.placePiece(newPiece, pos);
-		piecesOnTheBoard.add(newPiece);
 		
+		//o histórico passa a registrar a peça escolhida no lugar da rainha
+		int move = moveHistory[historySize - 1];
+		moveHistory[historySize - 1] = Move.promotion(Move.from(move), Move.to(move), newPiece.getType(), Move.isCapture(move));
+		
+		//check e xeque-mate valiam para a rainha: refaz com a peça nova (depois de um mate a vez tinha ficado com quem promoveu)
+		if (checkMate) {
+			checkMate = false;
+			nextTurn();
+		}
+		updateCheck();
+		promoted = newPiece;
 		return newPiece;
 		
 	}
@@ -151,124 +498,163 @@ public class ChessMatch {
 		if(type.equals("Q")) return new Queen(board, color);
 		return new Rook(board, color);
 	}
+	
+	private ChessPiece copyPiece(ChessPiece piece) {
+		ChessPiece copy;
+		if (piece.getType() == PieceType.KING) copy = new King(board, piece.getColor(), this);
+		else if (piece.getType() == PieceType.PAWN) copy = new Pawn(board, piece.getColor(), this);
+		else copy = newPiece(piece.getType(), piece.getColor());
+		copy.setMoveCount(piece.getMoveCount());
+		return copy;
+	}
+	
+	private ChessPiece newPiece(PieceType type, Color color) {
+		if(type == PieceType.BISHOP) return new Bishop(board, color);
+		if(type == PieceType.KNIGHT) return new Knight(board, color);
+		if(type == PieceType.QUEEN) return new Queen(board, color);
+		return new Rook(board, color);
+	}
 
 	
 	private void validateSourcePosition(Position position){
-		if(!board.thereIsAPiece(position)) {
-			throw new ChessException("Não existe peça na posição de origem");
+		MoveResult result = validateSource(board.square(position));
+		if (result != MoveResult.OK) {
+			throw new ChessException(result.getMessage());
 		}
-		
-		if(currentPlayer != ((ChessPiece) board.piece(position)).getColor()) {
-			throw new ChessException("Selecione apenas suas peças. Você não pode mover as peças do outro jogador!");
+	}
+	
+	//confere a peça da casa de origem; quando OK, os movimentos legais do jogador ficam em moveBuffer
+	private MoveResult validateSource(int source) {
+		Piece piece = board.piece(source);
+		if (piece == null) {
+			return MoveResult.NO_PIECE;
 		}
-		
-		if(!board.piece(position).isThereAnyPossibleMove()) {
-			throw new ChessException("Não existe movimentos possíveis para a peça selecionada");
+		if (currentPlayer != ((ChessPiece) piece).getColor()) {
+			return MoveResult.WRONG_COLOR;
 		}
+		if (legalTargets(source) == 0) {
+			return MoveResult.NO_MOVES;
+		}
+		return MoveResult.OK;
 	}
 	
-	private void validateTargetPosition(Position source, Position target) {
-		if (!board.piece(source).possibleMove(target)) {
-			throw new ChessException("A peça escolhida não pode se mover para a posição alvo");
+	//casas de destino dos movimentos legais da peça na casa informada
+	private long legalTargets(int source) {
+		legalMoves(moveBuffer);
+		long targets = 0L;
+		for (int i = 0; i < moveBuffer.size(); i++) {
+			int move = moveBuffer.get(i);
+			if (Move.from(move) == source) {
+				targets |= 1L << Move.to(move);
+			}
 		}
+		return targets;
 	}
 	
-	private Piece makeMove(Position source, Position target) {
+	//casa de destino da captura en passant disponível para a cor informada, ou -1
+	private int enPassantSquare(Color color) {
+		if (enPassantVulnerable == null || enPassantVulnerable.getColor() == color) {
+			return -1;
+		}
+		int square = enPassantVulnerable.getSquare();
+		return (color == Color.WHITE) ? square - 8 : square + 8;
+	}
+	
+	private Piece makeMove(int move) {
+		int source = Move.from(move);
+		int target = Move.to(move);
+		int flags = Move.flags(move);
 		ChessPiece p = (ChessPiece)board.removePiece(source);
 		p.increaseMoveCount();
 		Piece capturedPiece = board.removePiece(target);
 		board.placePiece(p, target);
 		
 		if (capturedPiece != null) {
-			piecesOnTheBoard.remove(capturedPiece);
 			capturedPieces.add(capturedPiece);
 		}
 		
 		// #specialmove castling kingSide rook
-		if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-			Position sourceT = new Position(source.getRow(), source.getColumn() + 3);
-			Position targetT = new Position(source.getRow(), source.getColumn() + 1);
-			ChessPiece rook = (ChessPiece)board.removePiece(sourceT);
-			board.placePiece(rook, targetT);
+		if (flags == Move.KING_CASTLE) {
+			ChessPiece rook = (ChessPiece)board.removePiece(source + 3);
+			board.placePiece(rook, source + 1);
 			rook.increaseMoveCount();
 		}
 
 		// #specialmove castling queenSide rook
-		if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-			Position sourceT = new Position(source.getRow(), source.getColumn() - 4);
-			Position targetT = new Position(source.getRow(), source.getColumn() - 1);
-			ChessPiece rook = (ChessPiece)board.removePiece(sourceT);
-			board.placePiece(rook, targetT);
+		if (flags == Move.QUEEN_CASTLE) {
+			ChessPiece rook = (ChessPiece)board.removePiece(source - 4);
+			board.placePiece(rook, source - 1);
 			rook.increaseMoveCount();
 		}
 		
 		// #SpecialMove en passant
+		if (flags == Move.EN_PASSANT) {
+			int pawnSquare = (p.getColor() == Color.WHITE) ? target + 8 : target - 8;
+			capturedPiece = board.removePiece(pawnSquare);
+			capturedPieces.add(capturedPiece);
+		}
 		
-		if(p instanceof Pawn) {
-			if(source.getColumn() != target.getColumn() && capturedPiece == null) {
-				Position pawPosition;
-				if(p.getColor() == Color.WHITE) {
-					pawPosition = new Position(target.getRow() +1, target.getColumn());
-				}
-				else {
-					pawPosition = new Position(target.getRow() -1, target.getColumn());
-				}
-				capturedPiece = board.removePiece(pawPosition);
-				capturedPieces.add(capturedPiece);
-				piecesOnTheBoard.remove(capturedPiece);
+		// #SpecialMove promotion
+		if (Move.isPromotion(move)) {
+			board.removePiece(target);
+			if (promotedPawnCount == promotedPawns.length) {
+				promotedPawns = Arrays.copyOf(promotedPawns, promotedPawnCount * 2);
 			}
+			promotedPawns[promotedPawnCount++] = p;
+			
+			ChessPiece newPiece = newPiece(Move.promotionType(move), p.getColor());
+			board.placePiece(newPiece, target);
 		}
 		
+		updateCastlingRights();
 		return capturedPiece;
 	}
 	
 	
-	private void undoMove(Position source, Position target, Piece capturedPiece) {
+	private void undoMove(int move, Piece capturedPiece) {
+		int source = Move.from(move);
+		int target = Move.to(move);
+		int flags = Move.flags(move);
+		
+		// #SpecialMove promotion: devolve o peão ao lugar da peça promovida
+		if (Move.isPromotion(move)) {
+			board.removePiece(target);
+			ChessPiece pawn = promotedPawns[--promotedPawnCount];
+			promotedPawns[promotedPawnCount] = null;
+			board.placePiece(pawn, target);
+		}
+		
 		ChessPiece p = (ChessPiece) board.removePiece(target);// tira a peça que foi movida para o destino
 		p.decreaseMoveCount();
 		board.placePiece(p, source); // devolve essa peça para a posição de origem
 
 		// caso tenha sido capturada, além de remover da lista de peças capturadas, essa
-		// peça é adicionada novamente no tabuleiro
+		// peça é adicionada novamente no tabuleiro (no en passant, ao lado da casa de destino)
 		if (capturedPiece != null) {
-			board.placePiece(capturedPiece, target);
-			capturedPieces.remove(capturedPiece);
-			piecesOnTheBoard.add(capturedPiece);
+			if (flags == Move.EN_PASSANT) {
+				board.placePiece(capturedPiece, (p.getColor() == Color.WHITE) ? target + 8 : target - 8);
+			}
+			else {
+				board.placePiece(capturedPiece, target);
+			}
+			capturedPieces.remove(capturedPieces.size() - 1);
 		}
 
 		// #specialmove castling kingSide rook
-		if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-			Position sourceT = new Position(source.getRow(), source.getColumn() + 3);
-			Position targetT = new Position(source.getRow(), source.getColumn() + 1);
-			ChessPiece rook = (ChessPiece) board.removePiece(targetT);
-			board.placePiece(rook, sourceT);
+		if (flags == Move.KING_CASTLE) {
+			ChessPiece rook = (ChessPiece) board.removePiece(source + 1);
+			board.placePiece(rook, source + 3);
 			rook.decreaseMoveCount();
 		}
 
 		// #specialmove castling queenSide rook
-		if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-			Position sourceT = new Position(source.getRow(), source.getColumn() - 4);
-			Position targetT = new Position(source.getRow(), source.getColumn() - 1);
-			ChessPiece rook = (ChessPiece) board.removePiece(targetT);
-			board.placePiece(rook, sourceT);
+		if (flags == Move.QUEEN_CASTLE) {
+			ChessPiece rook = (ChessPiece) board.removePiece(source - 1);
+			board.placePiece(rook, source - 4);
 			rook.decreaseMoveCount();
 		}
-		// #SpecialMove en passant
-
-		if (p instanceof Pawn) {
-			if (source.getColumn() != target.getColumn() && capturedPiece == enPassantVulnerable) {
-				Position pawPosition;
-				ChessPiece paw = (ChessPiece)board.removePiece(target);
-				
-				if (p.getColor() == Color.WHITE) {
-					pawPosition = new Position(3, target.getColumn());
-				}
-				else {
-					pawPosition = new Position(4, target.getColumn());
-				}
-				board.placePiece(paw, pawPosition);
-			}
-		}
+		
+		updateCastlingRights();
 	}
 	
 	private Color opponent (Color color) {
@@ -277,59 +663,39 @@ public class ChessMatch {
 	
 	
 	private ChessPiece king(Color color) {
-		List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == color).collect(Collectors.toList());
-		for (Piece p : list) {
-			if (p instanceof King) {
-				return (ChessPiece) p;
-			}
+		ChessPiece king = kings.get(color);
+		if (king == null) {
+			throw new IllegalStateException("Não existe o rei na cor " + color + " no tabuleiro");
 		}
-		throw new IllegalStateException("Não existe o rei na cor " + color + " no tabuleiro");
+		return king;
 	}
 	
-	private boolean testCheck(Color color) {
-		Position kingPosition = king(color).getChessPosition().toPosition(); //pegar a posição do rei
-		List<Piece> opponentPieces = piecesOnTheBoard.stream()
-				.filter(x -> ((ChessPiece)x).getColor() == opponent(color)).collect(Collectors.toList());// lista de peças oponentes ao rei
-		for (Piece p : opponentPieces) {
-			boolean[][] mat = p.possibleMoves();
-			if (mat[kingPosition.getRow()][kingPosition.getColumn()]) {
-				return true;
-			}
+	//guarda o rei de cada cor ao montar o tabuleiro (reis nunca são capturados nem promovidos)
+	private void registerKing(ChessPiece piece) {
+		if (piece instanceof King) {
+			kings.put(piece.getColor(), piece);
 		}
-		//pra cada peça dessa lista, testa se existe algum movimento possível de levar o rei 
-		return false;
+	}
+	
+	private boolean testCheck(Color color) {
+		int kingSquare = king(color).getSquare(); //pegar a posição do rei
+		//testa se alguma peça oponente ataca a casa do rei, usando as tabelas de ataque
+		return board.isAttacked(kingSquare, opponent(color));
 	}
 	
 	private boolean testCheckMate(Color color) {
 		if (!testCheck(color)) {
 			return false;
 		}
-		List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == color).collect(Collectors.toList());
-		for (Piece p : list) {
-			boolean[][] mat = p.possibleMoves();//matriz com posições possíveis da peça p
-			for (int i=0; i<board.getRows(); i++) {
-				for (int j=0; j<board.getColumns(); j++) {
-					if (mat[i][j]) {
-						
-						Position source = ((ChessPiece)p).getChessPosition().toPosition();
-						Position target = new Position(i, j);
-						Piece capturedPiece = makeMove(source, target);
-						
-						boolean testCheck = testCheck(color);//depois testo se ainda está em check, se ainda estiver então retorna verdadeiro
-						undoMove(source, target, capturedPiece);
-						if (!testCheck) {
-							return false;
-						}
-					}
-				}
-			}
-		}
-		return true;
+		//em check e sem nenhum movimento legal
+		moveBuffer.clear();
+		MoveGenerator.generate(board, color, enPassantSquare(color), moveBuffer);
+		return moveBuffer.size() == 0;
 	}
 	
 	private void placeNewPiece(char column, int row, ChessPiece piece) {
 		board.placePiece(piece, new ChessPosition(column, row).toPosition());
-		piecesOnTheBoard.add(piece);
+		registerKing(piece);
 	}
 	
 	
@@ -373,6 +739,59 @@ public class ChessMatch {
 	private void nextTurn() {
 		turn++;
 		currentPlayer = (currentPlayer == Color.WHITE)? Color.BLACK : Color.WHITE;
+		stateHash ^= Zobrist.side();
+	}
+	
+	private void previousTurn() {
+		turn--;
+		currentPlayer = opponent(currentPlayer);
+		stateHash ^= Zobrist.side();
+	}
+	
+	//o en passant só entra no hash quando algum peão adversário pode de fato capturar
+	private long enPassantHash(ChessPiece vulnerable) {
+		if (vulnerable == null) {
+			return 0L;
+		}
+		int square = vulnerable.getSquare();
+		int target = (vulnerable.getColor() == Color.WHITE) ? square + 8 : square - 8;
+		Color capturer = opponent(vulnerable.getColor());
+		if ((Attacks.pawn(vulnerable.getColor(), target) & board.pieces(capturer, PieceType.PAWN)) == 0) {
+			return 0L;
+		}
+		return Zobrist.enPassant(square & 7);
+	}
+	
+	private void setEnPassantVulnerable(ChessPiece vulnerable) {
+		stateHash ^= enPassantHash;
+		enPassantHash = enPassantHash(vulnerable);
+		stateHash ^= enPassantHash;
+		enPassantVulnerable = vulnerable;
+	}
+	
+	//direitos de roque derivados do rei e das torres que ainda não se moveram
+	private int computeCastlingRights() {
+		int rights = 0;
+		if (canCastle(Color.WHITE, 60, 63)) rights |= WHITE_KINGSIDE;
+		if (canCastle(Color.WHITE, 60, 56)) rights |= WHITE_QUEENSIDE;
+		if (canCastle(Color.BLACK, 4, 7)) rights |= BLACK_KINGSIDE;
+		if (canCastle(Color.BLACK, 4, 0)) rights |= BLACK_QUEENSIDE;
+		return rights;
+	}
+	
+	private boolean canCastle(Color color, int kingSquare, int rookSquare) {
+		ChessPiece king = (ChessPiece) board.piece(kingSquare);
+		ChessPiece rook = (ChessPiece) board.piece(rookSquare);
+		return king != null && king.getType() == PieceType.KING && king.getColor() == color && king.getMoveCount() == 0
+				&& rook != null && rook.getType() == PieceType.ROOK && rook.getColor() == color && rook.getMoveCount() == 0;
+	}
+	
+	private void updateCastlingRights() {
+		int rights = computeCastlingRights();
+		if (rights != castlingRights) {
+			stateHash ^= Zobrist.castling(castlingRights) ^ Zobrist.castling(rights);
+			castlingRights = rights;
+		}
 	}
 
 
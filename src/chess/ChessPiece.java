@@ -18,6 +18,50 @@ public abstract class ChessPiece extends Piece {
 		return color;
 	}
 	
+	public abstract PieceType getType();
+	
+	//casas atacadas pela peça na posição atual (bitboard)
+	public abstract long attacks();
+	
+	//casas de destino possíveis: por padrão, as casas atacadas que não têm peça da mesma cor
+	public long moves() {
+		return attacks() & ~getChessBoard().pieces(color);
+	}
+	
+	@Override
+	public boolean[][] possibleMoves() {
+		boolean[][] matriz = new boolean[getBoard().getRows()][getBoard().getColumns()];
+		long moves = moves();
+		while (moves != 0) {
+			int square = Long.numberOfTrailingZeros(moves);
+			matriz[square >>> 3][square & 7] = true;
+			moves &= moves - 1;
+		}
+		return matriz;
+	}
+	
+	@Override
+	public boolean possibleMove(Position position) {
+		return (moves() & (1L << getBoard().square(position))) != 0;
+	}
+	
+	@Override
+	public boolean isThereAnyPossibleMove() {
+		return moves() != 0;
+	}
+	
+	//escreve os movimentos da peça, codificados (ver Move), no buffer informado, sem alocar objetos
+	public void generateMoves(MoveBuffer buffer) {
+		int from = getSquare();
+		long opponent = getChessBoard().pieces(color == Color.WHITE ? Color.BLACK : Color.WHITE);
+		long moves = moves();
+		while (moves != 0) {
+			int to = Long.numberOfTrailingZeros(moves);
+			buffer.add(Move.of(from, to, (opponent & (1L << to)) != 0 ? Move.CAPTURE : Move.QUIET));
+			moves &= moves - 1;
+		}
+	}
+	
 	public int getMoveCount() {
 		return moveCount;
 	}
@@ -30,12 +74,30 @@ public abstract class ChessPiece extends Piece {
 		moveCount--;
 	}
 	
+	//usado ao copiar a partida, para a peça copiada herdar o histórico de movimentos
+	void setMoveCount(int moveCount) {
+		this.moveCount = moveCount;
+	}
+	
 
 	//esta função fica nessa classe genérica porque será reutilizada em outras classes
 	//função serve para saber se tem uma peça adversária em determinada casa
 	protected boolean isThereOpponentPiece(Position position) {
-		ChessPiece p = (ChessPiece)getBoard().piece(position);
-		return p != null && p.getColor() != color;
+		return isThereOpponentPiece(getBoard().square(position));
+	}
+	
+	protected boolean isThereOpponentPiece(int square) {
+		long opponent = getChessBoard().pieces(color == Color.WHITE ? Color.BLACK : Color.WHITE);
+		return (opponent & (1L << square)) != 0;
+	}
+	
+	protected ChessBoard getChessBoard() {
+		return (ChessBoard) getBoard();
+	}
+	
+	//índice da casa ocupada pela peça no tabuleiro (linha * 8 + coluna)
+	public int getSquare() {
+		return getBoard().square(position);
 	}
 	
 	public ChessPosition getChessPosition() {
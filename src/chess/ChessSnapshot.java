@@ -0,0 +1,104 @@
+package chess;
+
+import java.util.Arrays;
+
+//fotografia imutável de uma posição: disposição das peças, vez de jogar, roques, en passant e turno
+//não guarda referências para a partida, então pode ser lida por outras threads sem sincronização
+//e restaurada com ChessMatch.fromSnapshot
+public final class ChessSnapshot {
+
+	//values() copia o array a cada chamada
+	private static final Color[] COLORS = Color.values();
+	private static final PieceType[] TYPES = PieceType.values();
+
+	//uma casa por byte: 0 = vazia, senão ChessBoard.index(cor, tipo) + 1
+	private final byte[] squares;
+	private final Color currentPlayer;
+	private final int castlingRights;
+	private final int enPassantSquare;
+	private final int turn;
+	private final int halfMoveClock;
+	private final long hash;
+
+
+	ChessSnapshot(byte[] squares, Color currentPlayer, int castlingRights, int enPassantSquare, int turn, int halfMoveClock, long hash) {
+		this.squares = squares;
+		this.currentPlayer = currentPlayer;
+		this.castlingRights = castlingRights;
+		this.enPassantSquare = enPassantSquare;
+		this.turn = turn;
+		this.halfMoveClock = halfMoveClock;
+		this.hash = hash;
+	}
+
+
+	//cor da peça na casa (linha * 8 + coluna), ou null se vazia
+	public Color getColor(int square) {
+		int code = squares[square];
+		return (code == 0) ? null : COLORS[(code - 1) / 6];
+	}
+
+
+	public PieceType getType(int square) {
+		int code = squares[square];
+		return (code == 0) ? null : TYPES[(code - 1) % 6];
+	}
+
+
+	public Color getCurrentPlayer() {
+		return currentPlayer;
+	}
+
+
+	public int getCastlingRights() {
+		return castlingRights;
+	}
+
+
+	//casa do peão que acabou de avançar duas casas, ou -1
+	public int getEnPassantSquare() {
+		return enPassantSquare;
+	}
+
+
+	public int getTurn() {
+		return turn;
+	}
+
+
+	public int getHalfMoveClock() {
+		return halfMoveClock;
+	}
+
+
+	public long getPositionHash() {
+		return hash;
+	}
+
+
+	byte code(int square) {
+		return squares[square];
+	}
+
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ChessSnapshot)) {
+			return false;
+		}
+		ChessSnapshot other = (ChessSnapshot) obj;
+		return hash == other.hash && currentPlayer == other.currentPlayer && castlingRights == other.castlingRights
+				&& enPassantSquare == other.enPassantSquare && turn == other.turn && halfMoveClock == other.halfMoveClock
+				&& Arrays.equals(squares, other.squares);
+	}
+
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(hash) * 31 + turn;
+	}
+
+}
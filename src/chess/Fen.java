@@ -0,0 +1,213 @@
+package chess;
+
+//leitura e escrita de posições em notação FEN (Forsyth-Edwards)
+//ex.: "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1"
+public final class Fen {
+
+	public static final String INITIAL = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+	private static final String PIECE_CHARS = "pnbrqk";
+	private static final PieceType[] TYPES = PieceType.values();
+
+
+	private Fen() {
+	}
+
+
+	//monta a partida direto da FEN, sem jogar movimentos: percorre o texto uma vez, sem split
+	//(os contadores de meio-lance e de lance completo são opcionais, como em muitas suítes de teste)
+	public static ChessMatch parse(String fen) {
+		byte[] squares = new byte[64];
+		int length = fen.length();
+		int i = 0;
+
+		//disposição das peças, da fileira 8 para a 1 (linha 0 = fileira 8, como no tabuleiro)
+		int square = 0;
+		int column = 0;
+		while (i < length && fen.charAt(i) != ' ') {
+			char c = fen.charAt(i++);
+			if (c == '/') {
+				if (column != 8) {
+					throw invalid(fen, "fileira incompleta");
+				}
+				column = 0;
+				continue;
+			}
+			if (c >= '1' && c <= '8') {
+				column += c - '0';
+				square += c - '0';
+			}
+			else {
+				int type = PIECE_CHARS.indexOf(Character.toLowerCase(c));
+				if (type < 0) {
+					throw invalid(fen, "peça inválida '" + c + "'");
+				}
+				if (column < 8 && square < 64) {
+					Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+					squares[square] = (byte) (ChessBoard.index(color, TYPES[type]) + 1);
+				}
+				column++;
+				square++;
+			}
+			if (column > 8 || square > 64) {
+				throw invalid(fen, "casas demais");
+			}
+		}
+		if (square != 64) {
+			throw invalid(fen, "tabuleiro incompleto");
+		}
+
+		i = skipSpaces(fen, i);
+		if (i >= length) {
+			throw invalid(fen, "falta a vez de jogar");
+		}
+		Color player;
+		char side = fen.charAt(i++);
+		if (side == 'w') player = Color.WHITE;
+		else if (side == 'b') player = Color.BLACK;
+		else throw invalid(fen, "vez de jogar inválida '" + side + "'");
+
+		int castling = 0;
+		i = skipSpaces(fen, i);
+		while (i < length && fen.charAt(i) != ' ') {
+			char c = fen.charAt(i++);
+			if (c == 'K') castling |= ChessMatch.WHITE_KINGSIDE;
+			else if (c == 'Q') castling |= ChessMatch.WHITE_QUEENSIDE;
+			else if (c == 'k') castling |= ChessMatch.BLACK_KINGSIDE;
+			else if (c == 'q') castling |= ChessMatch.BLACK_QUEENSIDE;
+			else if (c != '-') throw invalid(fen, "roque inválido '" + c + "'");
+		}
+
+		//en passant: a FEN informa a casa de destino; a partida guarda a casa do peão que avançou
+		int enPassant = -1;
+		i = skipSpaces(fen, i);
+		if (i < length && fen.charAt(i) != '-') {
+			if (i + 1 >= length) {
+				throw invalid(fen, "en passant inválido");
+			}
+			column = fen.charAt(i) - 'a';
+			int row = 8 - (fen.charAt(i + 1) - '0');
+			if (column < 0 || column > 7 || row != ((player == Color.WHITE) ? 2 : 5)) {
+				throw invalid(fen, "en passant inválido");
+			}
+			enPassant = (player == Color.WHITE) ? (row + 1) * 8 + column : (row - 1) * 8 + column;
+			Color pawnColor = (player == Color.WHITE) ? Color.BLACK : Color.WHITE;
+			if (squares[enPassant] != ChessBoard.index(pawnColor, PieceType.PAWN) + 1) {
+				throw invalid(fen, "en passant sem peão");
+			}
+			i += 2;
+		}
+		else {
+			i++;
+		}
+
+		int halfMoveClock = 0;
+		int fullMove = 1;
+		i = skipSpaces(fen, i);
+		if (i < length) {
+			int end = nextSpace(fen, i);
+			halfMoveClock = parseNumber(fen, i, end);
+			i = skipSpaces(fen, end);
+			if (i < length) {
+				fullMove = Math.max(1, parseNumber(fen, i, nextSpace(fen, i)));
+			}
+		}
+
+		//o turno da partida conta meio-lances a partir de 1
+		int turn = 2 * (fullMove - 1) + ((player == Color.WHITE) ? 1 : 2);
+		return ChessMatch.fromSnapshot(new ChessSnapshot(squares, player, castling, enPassant, turn, halfMoveClock, 0L));
+	}
+
+
+	public static String write(ChessMatch match) {
+		return write(match.snapshot());
+	}
+
+
+	public static String write(ChessSnapshot snapshot) {
+		StringBuilder sb = new StringBuilder(90);
+		for (int row = 0; row < 8; row++) {
+			int empty = 0;
+			for (int column = 0; column < 8; column++) {
+				int code = snapshot.code(row * 8 + column);
+				if (code == 0) {
+					empty++;
+					continue;
+				}
+				if (empty > 0) {
+					sb.append(empty);
+					empty = 0;
+				}
+				char c = PIECE_CHARS.charAt((code - 1) % 6);
+				sb.append(snapshot.getColor(row * 8 + column) == Color.WHITE ? Character.toUpperCase(c) : c);
+			}
+			if (empty > 0) {
+				sb.append(empty);
+			}
+			if (row < 7) {
+				sb.append('/');
+			}
+		}
+
+		sb.append(snapshot.getCurrentPlayer() == Color.WHITE ? " w " : " b ");
+
+		int castling = snapshot.getCastlingRights();
+		if (castling == 0) sb.append('-');
+		if ((castling & ChessMatch.WHITE_KINGSIDE) != 0) sb.append('K');
+		if ((castling & ChessMatch.WHITE_QUEENSIDE) != 0) sb.append('Q');
+		if ((castling & ChessMatch.BLACK_KINGSIDE) != 0) sb.append('k');
+		if ((castling & ChessMatch.BLACK_QUEENSIDE) != 0) sb.append('q');
+
+		sb.append(' ');
+		int pawn = snapshot.getEnPassantSquare();
+		if (pawn < 0) {
+			sb.append('-');
+		}
+		else {
+			int target = (snapshot.getColor(pawn) == Color.WHITE) ? pawn + 8 : pawn - 8;
+			sb.append(Move.squareName(target));
+		}
+
+		sb.append(' ').append(snapshot.getHalfMoveClock());
+		sb.append(' ').append((snapshot.getTurn() + 1) / 2);
+		return sb.toString();
+	}
+
+
+	private static int skipSpaces(String fen, int i) {
+		while (i < fen.length() && fen.charAt(i) == ' ') {
+			i++;
+		}
+		return i;
+	}
+
+
+	private static int nextSpace(String fen, int i) {
+		while (i < fen.length() && fen.charAt(i) != ' ') {
+			i++;
+		}
+		return i;
+	}
+
+
+	private static int parseNumber(String fen, int start, int end) {
+		int value = 0;
+		if (start == end) {
+			throw invalid(fen, "número esperado");
+		}
+		for (int i = start; i < end; i++) {
+			char c = fen.charAt(i);
+			if (c < '0' || c > '9') {
+				throw invalid(fen, "número inválido");
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+
+	private static ChessException invalid(String fen, String reason) {
+		return new ChessException("FEN inválida (" + reason + "): " + fen);
+	}
+
+}
@@ -0,0 +1,122 @@
+package chess;
+
+//movimento codificado em um int, para não alocar objetos na geração de lances
+//bits 0-5: casa de origem | bits 6-11: casa de destino | bits 12-15: flags | bits 16-18: peça da promoção
+public final class Move {
+
+	public static final int NONE = 0;
+
+	public static final int QUIET = 0;
+	public static final int DOUBLE_PAWN_PUSH = 1;
+	public static final int KING_CASTLE = 2;
+	public static final int QUEEN_CASTLE = 3;
+	public static final int CAPTURE = 4;
+	public static final int EN_PASSANT = 5;
+	public static final int PROMOTION = 8;
+	public static final int PROMOTION_CAPTURE = 12;
+
+	private static final PieceType[] TYPES = PieceType.values();
+
+
+	private Move() {
+	}
+
+
+	public static int of(int from, int to, int flags) {
+		return from | (to << 6) | (flags << 12);
+	}
+
+
+	public static int promotion(int from, int to, PieceType type, boolean capture) {
+		return of(from, to, capture ? PROMOTION_CAPTURE : PROMOTION) | (type.ordinal() << 16);
+	}
+
+
+	public static int from(int move) {
+		return move & 0x3F;
+	}
+
+
+	public static int to(int move) {
+		return (move >>> 6) & 0x3F;
+	}
+
+
+	public static int flags(int move) {
+		return (move >>> 12) & 0xF;
+	}
+
+
+	public static boolean isCapture(int move) {
+		return (flags(move) & CAPTURE) != 0;
+	}
+
+
+	public static boolean isPromotion(int move) {
+		return (flags(move) & PROMOTION) != 0;
+	}
+
+
+	public static boolean isCastle(int move) {
+		int flags = flags(move);
+		return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+	}
+
+
+	public static PieceType promotionType(int move) {
+		return TYPES[(move >>> 16) & 0x7];
+	}
+
+
+	//movimento completo (com flags) a partir de origem, destino e peça da promoção (ou null),
+	//deduzindo captura, en passant, roque e avanço duplo pelas peças do tabuleiro (não verifica legalidade)
+	public static int decode(ChessBoard board, int from, int to, PieceType promotion) {
+		ChessPiece p = (ChessPiece) board.piece(from);
+		boolean capture = board.piece(to) != null;
+		if (p.getType() == PieceType.KING && Math.abs(to - from) == 2) {
+			return of(from, to, (to > from) ? KING_CASTLE : QUEEN_CASTLE);
+		}
+		if (p.getType() == PieceType.PAWN) {
+			if (promotion != null) {
+				return promotion(from, to, promotion, capture);
+			}
+			if (Math.abs(to - from) == 16) {
+				return of(from, to, DOUBLE_PAWN_PUSH);
+			}
+			if (!capture && (from & 7) != (to & 7)) {
+				return of(from, to, EN_PASSANT);
+			}
+		}
+		return of(from, to, capture ? CAPTURE : QUIET);
+	}
+
+
+	//forma compacta de 16 bits (arquivos de partidas e livro de aberturas):
+	//origem (6) | destino (6) | peça da promoção (3 bits, ordinal de PieceType ou 0)
+	public static int compact(int move) {
+		int promotion = isPromotion(move) ? promotionType(move).ordinal() : 0;
+		return from(move) | (to(move) << 6) | (promotion << 12);
+	}
+
+
+	public static int expand(ChessBoard board, int compact) {
+		int promotion = (compact >>> 12) & 0x7;
+		return decode(board, compact & 0x3F, (compact >>> 6) & 0x3F, (promotion == 0) ? null : TYPES[promotion]);
+	}
+
+
+	public static String squareName(int square) {
+		return "" + (char) ('a' + (square & 7)) + (8 - (square >>> 3));
+	}
+
+
+	//notação de coordenadas, ex.: e2e4, e7e8q
+	public static String toString(int move) {
+		String s = squareName(from(move)) + squareName(to(move));
+		if (isPromotion(move)) {
+			s += "nbrq".charAt(promotionType(move).ordinal() - 1);
+		}
+		return s;
+	}
+
+}
@@ -0,0 +1,100 @@
+package chess;
+
+import java.util.Arrays;
+
+//lista de movimentos codificados (ver Move) reaproveitada entre chamadas
+//cada movimento pode ter uma nota de ordenação: pickNext escolhe o melhor restante sem ordenar a lista toda
+public class MoveBuffer {
+
+	private int[] moves;
+	private int[] scores;
+	private int size;
+
+
+	public MoveBuffer() {
+		this(256);
+	}
+
+
+	public MoveBuffer(int capacity) {
+		moves = new int[capacity];
+		scores = new int[capacity];
+	}
+
+
+	public void add(int move) {
+		if (size == moves.length) {
+			moves = Arrays.copyOf(moves, size * 2);
+			scores = Arrays.copyOf(scores, size * 2);
+		}
+		scores[size] = 0;
+		moves[size++] = move;
+	}
+
+
+	public int get(int index) {
+		return moves[index];
+	}
+
+
+	public void set(int index, int move) {
+		moves[index] = move;
+	}
+
+
+	public void swap(int i, int j) {
+		int aux = moves[i];
+		moves[i] = moves[j];
+		moves[j] = aux;
+		aux = scores[i];
+		scores[i] = scores[j];
+		scores[j] = aux;
+	}
+
+
+	public int getScore(int index) {
+		return scores[index];
+	}
+
+
+	public void setScore(int index, int score) {
+		scores[index] = score;
+	}
+
+
+	//traz para a posição index o movimento de maior nota entre index e o fim da lista e o devolve
+	//(seleção parcial: com um corte beta cedo, o resto da lista nem chega a ser comparado)
+	public int pickNext(int index) {
+		int best = index;
+		for (int i = index + 1; i < size; i++) {
+			if (scores[i] > scores[best]) {
+				best = i;
+			}
+		}
+		if (best != index) {
+			swap(index, best);
+		}
+		return moves[index];
+	}
+
+
+	public int size() {
+		return size;
+	}
+
+
+	public void clear() {
+		size = 0;
+	}
+
+
+	public boolean contains(int move) {
+		for (int i = 0; i < size; i++) {
+			if (moves[i] == move) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,197 @@
+package chess;
+
+//gerador de movimentos legais: calcula antes as peças cravadas, as peças que dão check
+//e as casas que resolvem o check, e só emite movimentos que não deixam o próprio rei em check
+//(sem precisar fazer/desfazer cada movimento para testar)
+final class MoveGenerator {
+
+	private MoveGenerator() {
+	}
+
+
+	//enPassantSquare: casa de destino da captura en passant, ou -1 se não houver
+	static void generate(ChessBoard board, Color us, int enPassantSquare, MoveBuffer buffer) {
+		Color them = (us == Color.WHITE) ? Color.BLACK : Color.WHITE;
+		long occupied = board.occupied();
+		long own = board.pieces(us);
+		long enemy = board.pieces(them);
+		long kingBit = board.pieces(us, PieceType.KING);
+		int kingSquare = Long.numberOfTrailingZeros(kingBit);
+
+		long checkers = board.attackersTo(kingSquare, them, occupied);
+
+		//movimentos do rei: a casa de destino não pode estar atacada (sem o rei no caminho dos raios)
+		long targets = Attacks.king(kingSquare) & ~own;
+		while (targets != 0) {
+			int to = Long.numberOfTrailingZeros(targets);
+			if (board.attackersTo(to, them, occupied ^ kingBit) == 0) {
+				buffer.add(Move.of(kingSquare, to, (enemy & (1L << to)) != 0 ? Move.CAPTURE : Move.QUIET));
+			}
+			targets &= targets - 1;
+		}
+
+		//em check duplo, só o rei pode se mover
+		if (Long.bitCount(checkers) > 1) {
+			return;
+		}
+
+		//casas que resolvem um check simples: capturar a peça ou bloquear o raio
+		long evasion = ~0L;
+		if (checkers != 0) {
+			evasion = checkers | Attacks.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+		}
+		else {
+			generateCastling(board, us, them, kingSquare, buffer);
+		}
+
+		long pinned = pinned(board, them, kingSquare, occupied, own);
+
+		long knights = board.pieces(us, PieceType.KNIGHT) & ~pinned;
+		while (knights != 0) {
+			int from = Long.numberOfTrailingZeros(knights);
+			addMoves(from, Attacks.knight(from) & ~own & evasion, enemy, buffer);
+			knights &= knights - 1;
+		}
+
+		long diagonal = board.pieces(us, PieceType.BISHOP) | board.pieces(us, PieceType.QUEEN);
+		while (diagonal != 0) {
+			int from = Long.numberOfTrailingZeros(diagonal);
+			long moves = Attacks.bishop(from, occupied) & ~own & evasion;
+			if ((pinned & (1L << from)) != 0) {
+				moves &= Attacks.line(kingSquare, from);
+			}
+			addMoves(from, moves, enemy, buffer);
+			diagonal &= diagonal - 1;
+		}
+
+		long orthogonal = board.pieces(us, PieceType.ROOK) | board.pieces(us, PieceType.QUEEN);
+		while (orthogonal != 0) {
+			int from = Long.numberOfTrailingZeros(orthogonal);
+			long moves = Attacks.rook(from, occupied) & ~own & evasion;
+			if ((pinned & (1L << from)) != 0) {
+				moves &= Attacks.line(kingSquare, from);
+			}
+			addMoves(from, moves, enemy, buffer);
+			orthogonal &= orthogonal - 1;
+		}
+
+		generatePawnMoves(board, us, them, kingSquare, enPassantSquare, occupied, enemy, pinned, checkers, evasion, buffer);
+	}
+
+
+	//peças próprias que são a única barreira entre o rei e uma torre, bispo ou rainha adversária
+	private static long pinned(ChessBoard board, Color them, int kingSquare, long occupied, long own) {
+		long queens = board.pieces(them, PieceType.QUEEN);
+		long snipers = (Attacks.rook(kingSquare, 0L) & (board.pieces(them, PieceType.ROOK) | queens))
+				| (Attacks.bishop(kingSquare, 0L) & (board.pieces(them, PieceType.BISHOP) | queens));
+		long pinned = 0L;
+		while (snipers != 0) {
+			int sniper = Long.numberOfTrailingZeros(snipers);
+			long blockers = Attacks.between(kingSquare, sniper) & occupied;
+			if (blockers != 0 && (blockers & (blockers - 1)) == 0 && (blockers & own) != 0) {
+				pinned |= blockers;
+			}
+			snipers &= snipers - 1;
+		}
+		return pinned;
+	}
+
+
+	private static void generatePawnMoves(ChessBoard board, Color us, Color them, int kingSquare, int enPassantSquare,
+			long occupied, long enemy, long pinned, long checkers, long evasion, MoveBuffer buffer) {
+		boolean white = us == Color.WHITE;
+		int forward = white ? -8 : 8;
+		int startRow = white ? 6 : 1;
+		int lastRow = white ? 0 : 7;
+
+		long pawns = board.pieces(us, PieceType.PAWN);
+		while (pawns != 0) {
+			int from = Long.numberOfTrailingZeros(pawns);
+			pawns &= pawns - 1;
+
+			long allowed = evasion;
+			if ((pinned & (1L << from)) != 0) {
+				allowed &= Attacks.line(kingSquare, from);
+			}
+
+			int one = from + forward;
+			if ((occupied & (1L << one)) == 0) {
+				if ((allowed & (1L << one)) != 0) {
+					addPawnMove(from, one, false, lastRow, buffer);
+				}
+				int two = one + forward;
+				if ((from >>> 3) == startRow && (occupied & (1L << two)) == 0 && (allowed & (1L << two)) != 0) {
+					buffer.add(Move.of(from, two, Move.DOUBLE_PAWN_PUSH));
+				}
+			}
+
+			long captures = Attacks.pawn(us, from) & enemy & allowed;
+			while (captures != 0) {
+				int to = Long.numberOfTrailingZeros(captures);
+				addPawnMove(from, to, true, lastRow, buffer);
+				captures &= captures - 1;
+			}
+
+			//#SpecialMove en passant: testa o rei com as duas peças fora da fileira
+			if (enPassantSquare >= 0 && (Attacks.pawn(us, from) & (1L << enPassantSquare)) != 0) {
+				int capturedSquare = enPassantSquare - forward;
+				long capturedBit = 1L << capturedSquare;
+				boolean resolvesCheck = checkers == 0 || (checkers & capturedBit) != 0 || (evasion & (1L << enPassantSquare)) != 0;
+				long after = (occupied ^ (1L << from) ^ capturedBit) | (1L << enPassantSquare);
+				if (resolvesCheck && (board.attackersTo(kingSquare, them, after) & ~capturedBit) == 0) {
+					buffer.add(Move.of(from, enPassantSquare, Move.EN_PASSANT));
+				}
+			}
+		}
+	}
+
+
+	private static void addPawnMove(int from, int to, boolean capture, int lastRow, MoveBuffer buffer) {
+		if ((to >>> 3) == lastRow) {
+			//#SpecialMove promotion: um movimento para cada peça possível
+			buffer.add(Move.promotion(from, to, PieceType.QUEEN, capture));
+			buffer.add(Move.promotion(from, to, PieceType.ROOK, capture));
+			buffer.add(Move.promotion(from, to, PieceType.BISHOP, capture));
+			buffer.add(Move.promotion(from, to, PieceType.KNIGHT, capture));
+		}
+		else {
+			buffer.add(Move.of(from, to, capture ? Move.CAPTURE : Move.QUIET));
+		}
+	}
+
+
+	//#SpecialMove Castling: rei e torre sem movimentos, casas livres e o rei não passa por casa atacada
+	private static void generateCastling(ChessBoard board, Color us, Color them, int kingSquare, MoveBuffer buffer) {
+		ChessPiece king = (ChessPiece) board.piece(kingSquare);
+		if (king.getMoveCount() != 0 || (kingSquare & 7) != 4) {
+			return;
+		}
+		long occupied = board.occupied();
+		if (canCastleWith(board, us, kingSquare + 3)
+				&& (occupied & Attacks.between(kingSquare, kingSquare + 3)) == 0
+				&& !board.isAttacked(kingSquare + 1, them) && !board.isAttacked(kingSquare + 2, them)) {
+			buffer.add(Move.of(kingSquare, kingSquare + 2, Move.KING_CASTLE));
+		}
+		if (canCastleWith(board, us, kingSquare - 4)
+				&& (occupied & Attacks.between(kingSquare, kingSquare - 4)) == 0
+				&& !board.isAttacked(kingSquare - 1, them) && !board.isAttacked(kingSquare - 2, them)) {
+			buffer.add(Move.of(kingSquare, kingSquare - 2, Move.QUEEN_CASTLE));
+		}
+	}
+
+
+	private static boolean canCastleWith(ChessBoard board, Color us, int rookSquare) {
+		ChessPiece p = (ChessPiece) board.piece(rookSquare);
+		return p != null && p.getType() == PieceType.ROOK && p.getColor() == us && p.getMoveCount() == 0;
+	}
+
+
+	private static void addMoves(int from, long targets, long enemy, MoveBuffer buffer) {
+		while (targets != 0) {
+			int to = Long.numberOfTrailingZeros(targets);
+			buffer.add(Move.of(from, to, (enemy & (1L << to)) != 0 ? Move.CAPTURE : Move.QUIET));
+			targets &= targets - 1;
+		}
+	}
+
+}
@@ -0,0 +1,29 @@
+package chess;
+
+//resultado de ChessMatch.tryMove: o lance foi jogado (OK) ou o motivo da recusa,
+//sem criar exceção; as mensagens são as mesmas que performChessMove usa na ChessException
+public enum MoveResult {
+	OK(null),
+	INVALID_SQUARE("Movimento inválido: informe casas de A1 até H8"),
+	GAME_OVER("A partida já terminou"),
+	NO_PIECE("Não existe peça na posição de origem"),
+	WRONG_COLOR("Selecione apenas suas peças. Você não pode mover as peças do outro jogador!"),
+	NO_MOVES("Não existe movimentos possíveis para a peça selecionada"),
+	ILLEGAL_TARGET("A peça escolhida não pode se mover para a posição alvo"),
+	SELF_CHECK("Você não pode se colcoar em check!!");
+
+	private final String message;
+
+	MoveResult(String message) {
+		this.message = message;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public boolean isOk() {
+		return this == OK;
+	}
+
+}
@@ -0,0 +1,138 @@
+package chess;
+
+//valores das peças e tabelas peça-casa de meio-jogo e final, usados pela avaliação
+//as tabelas estão do ponto de vista das brancas, na ordem das casas (linha 0 = fileira 8);
+//para as pretas, a casa é espelhada (casa ^ 56) e o valor entra com sinal negativo.
+//ChessBoard soma estes valores a cada peça colocada ou retirada, como faz com o hash de Zobrist
+public final class PieceSquareTables {
+
+	//valores em centipeões, na ordem de PieceType
+	public static final int[] MIDDLEGAME_VALUES = { 100, 320, 330, 500, 900, 0 };
+	public static final int[] ENDGAME_VALUES = { 120, 300, 320, 520, 930, 0 };
+
+	//peso de cada peça na fase do jogo: 24 com todas as peças (meio-jogo), 0 só com reis e peões (final)
+	public static final int[] PHASE_WEIGHTS = { 0, 1, 1, 2, 4, 0 };
+	public static final int MAX_PHASE = 24;
+
+	private static final int[] PAWN = {
+			 0,  0,  0,  0,  0,  0,  0,  0,
+			50, 50, 50, 50, 50, 50, 50, 50,
+			10, 10, 20, 30, 30, 20, 10, 10,
+			 5,  5, 10, 25, 25, 10,  5,  5,
+			 0,  0,  0, 20, 20,  0,  0,  0,
+			 5, -5,-10,  0,  0,-10, -5,  5,
+			 5, 10, 10,-20,-20, 10, 10,  5,
+			 0,  0,  0,  0,  0,  0,  0,  0
+	};
+
+	private static final int[] PAWN_ENDGAME = {
+			 0,  0,  0,  0,  0,  0,  0,  0,
+			80, 80, 80, 80, 80, 80, 80, 80,
+			50, 50, 50, 50, 50, 50, 50, 50,
+			30, 30, 30, 30, 30, 30, 30, 30,
+			15, 15, 15, 15, 15, 15, 15, 15,
+			 5,  5,  5,  5,  5,  5,  5,  5,
+			 0,  0,  0,  0,  0,  0,  0,  0,
+			 0,  0,  0,  0,  0,  0,  0,  0
+	};
+
+	private static final int[] KNIGHT = {
+			-50,-40,-30,-30,-30,-30,-40,-50,
+			-40,-20,  0,  0,  0,  0,-20,-40,
+			-30,  0, 10, 15, 15, 10,  0,-30,
+			-30,  5, 15, 20, 20, 15,  5,-30,
+			-30,  0, 15, 20, 20, 15,  0,-30,
+			-30,  5, 10, 15, 15, 10,  5,-30,
+			-40,-20,  0,  5,  5,  0,-20,-40,
+			-50,-40,-30,-30,-30,-30,-40,-50
+	};
+
+	private static final int[] BISHOP = {
+			-20,-10,-10,-10,-10,-10,-10,-20,
+			-10,  0,  0,  0,  0,  0,  0,-10,
+			-10,  0,  5, 10, 10,  5,  0,-10,
+			-10,  5,  5, 10, 10,  5,  5,-10,
+			-10,  0, 10, 10, 10, 10,  0,-10,
+			-10, 10, 10, 10, 10, 10, 10,-10,
+			-10,  5,  0,  0,  0,  0,  5,-10,
+			-20,-10,-10,-10,-10,-10,-10,-20
+	};
+
+	private static final int[] ROOK = {
+			 0,  0,  0,  0,  0,  0,  0,  0,
+			 5, 10, 10, 10, 10, 10, 10,  5,
+			-5,  0,  0,  0,  0,  0,  0, -5,
+			-5,  0,  0,  0,  0,  0,  0, -5,
+			-5,  0,  0,  0,  0,  0,  0, -5,
+			-5,  0,  0,  0,  0,  0,  0, -5,
+			-5,  0,  0,  0,  0,  0,  0, -5,
+			 0,  0,  0,  5,  5,  0,  0,  0
+	};
+
+	private static final int[] QUEEN = {
+			-20,-10,-10, -5, -5,-10,-10,-20,
+			-10,  0,  0,  0,  0,  0,  0,-10,
+			-10,  0,  5,  5,  5,  5,  0,-10,
+			 -5,  0,  5,  5,  5,  5,  0, -5,
+			  0,  0,  5,  5,  5,  5,  0, -5,
+			-10,  5,  5,  5,  5,  5,  0,-10,
+			-10,  0,  5,  0,  0,  0,  0,-10,
+			-20,-10,-10, -5, -5,-10,-10,-20
+	};
+
+	private static final int[] KING = {
+			-30,-40,-40,-50,-50,-40,-40,-30,
+			-30,-40,-40,-50,-50,-40,-40,-30,
+			-30,-40,-40,-50,-50,-40,-40,-30,
+			-30,-40,-40,-50,-50,-40,-40,-30,
+			-20,-30,-30,-40,-40,-30,-30,-20,
+			-10,-20,-20,-20,-20,-20,-20,-10,
+			 20, 20,  0,  0,  0,  0, 20, 20,
+			 20, 30, 10,  0,  0, 10, 30, 20
+	};
+
+	private static final int[] KING_ENDGAME = {
+			-50,-40,-30,-20,-20,-30,-40,-50,
+			-30,-20,-10,  0,  0,-10,-20,-30,
+			-30,-10, 20, 30, 30, 20,-10,-30,
+			-30,-10, 30, 40, 40, 30,-10,-30,
+			-30,-10, 30, 40, 40, 30,-10,-30,
+			-30,-10, 20, 30, 30, 20,-10,-30,
+			-30,-30,  0,  0,  0,  0,-30,-30,
+			-50,-30,-30,-30,-30,-30,-30,-50
+	};
+
+	//valor + tabela, com sinal da cor, por índice de ChessBoard.index(Color, PieceType) e casa
+	private static final int[][] MIDDLEGAME = new int[12][64];
+	private static final int[][] ENDGAME = new int[12][64];
+
+	static {
+		int[][] middlegame = { PAWN, KNIGHT, BISHOP, ROOK, QUEEN, KING };
+		int[][] endgame = { PAWN_ENDGAME, KNIGHT, BISHOP, ROOK, QUEEN, KING_ENDGAME };
+		for (PieceType type : PieceType.values()) {
+			int t = type.ordinal();
+			for (int sq = 0; sq < 64; sq++) {
+				MIDDLEGAME[ChessBoard.index(Color.WHITE, type)][sq] = MIDDLEGAME_VALUES[t] + middlegame[t][sq];
+				ENDGAME[ChessBoard.index(Color.WHITE, type)][sq] = ENDGAME_VALUES[t] + endgame[t][sq];
+				MIDDLEGAME[ChessBoard.index(Color.BLACK, type)][sq] = -(MIDDLEGAME_VALUES[t] + middlegame[t][sq ^ 56]);
+				ENDGAME[ChessBoard.index(Color.BLACK, type)][sq] = -(ENDGAME_VALUES[t] + endgame[t][sq ^ 56]);
+			}
+		}
+	}
+
+
+	private PieceSquareTables() {
+	}
+
+
+	//index: ver ChessBoard.index(Color, PieceType); positivo para as brancas
+	public static int middlegame(int index, int square) {
+		return MIDDLEGAME[index][square];
+	}
+
+
+	public static int endgame(int index, int square) {
+		return ENDGAME[index][square];
+	}
+
+}
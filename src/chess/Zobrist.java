@@ -0,0 +1,63 @@
+package chess;
+
+//chaves aleatórias de 64 bits para o hash de Zobrist das posições
+//geradas com semente fixa: o mesmo tabuleiro tem o mesmo hash em qualquer execução
+public final class Zobrist {
+
+	private static final long[][] PIECES = new long[12][64];
+	private static final long[] CASTLING = new long[16];
+	private static final long[] EN_PASSANT = new long[8];
+	private static final long SIDE;
+
+	static {
+		long[] seed = { 0x9E3779B97F4A7C15L };
+		for (int i = 0; i < 12; i++) {
+			for (int sq = 0; sq < 64; sq++) {
+				PIECES[i][sq] = nextRandom(seed);
+			}
+		}
+		for (int i = 0; i < 16; i++) {
+			CASTLING[i] = nextRandom(seed);
+		}
+		for (int i = 0; i < 8; i++) {
+			EN_PASSANT[i] = nextRandom(seed);
+		}
+		SIDE = nextRandom(seed);
+	}
+
+
+	private Zobrist() {
+	}
+
+
+	//index: ver ChessBoard.index(Color, PieceType)
+	public static long piece(int index, int square) {
+		return PIECES[index][square];
+	}
+
+
+	public static long castling(int rights) {
+		return CASTLING[rights];
+	}
+
+
+	public static long enPassant(int column) {
+		return EN_PASSANT[column];
+	}
+
+
+	//aplicada quando é a vez das pretas
+	public static long side() {
+		return SIDE;
+	}
+
+
+	//splitmix64
+	private static long nextRandom(long[] seed) {
+		long z = (seed[0] += 0x9E3779B97F4A7C15L);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -0,0 +1,327 @@
+package chess.archive;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Fen;
+import chess.Move;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+import chess.pgn.PgnWriter;
+
+//arquivo binário de partidas, lido por memória mapeada
+//dados (<nome>):       "CHGA", versão, e um registro por partida (ver GameArchiveWriter)
+//índice (<nome>.idx):  a posição de cada registro (long), para chegar à partida n em O(1)
+//cada lance ocupa 16 bits (ver Move.compact)
+public class GameArchive implements Closeable {
+
+	static final int MAGIC = 0x43484741;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 8;
+	static final int FLAG_FEN = 1;
+
+	public static final int RESULT_UNKNOWN = 0;
+	public static final int RESULT_WHITE = 1;
+	public static final int RESULT_BLACK = 2;
+	public static final int RESULT_DRAW = 3;
+
+	private static final String[] RESULTS = { PgnGame.UNKNOWN, PgnGame.WHITE_WINS, PgnGame.BLACK_WINS, PgnGame.DRAW };
+
+	private FileChannel dataChannel;
+	private FileChannel indexChannel;
+	private MappedByteBuffer data;
+	private MappedByteBuffer index;
+	private int size;
+
+
+	//um índice ausente, truncado ou que não confere com os dados é refeito antes de abrir (ver rebuildIndex)
+	public GameArchive(Path path) throws IOException {
+		dataChannel = FileChannel.open(path, StandardOpenOption.READ);
+		checkHeader(dataChannel, path);
+		if (!indexMatches(dataChannel, indexPath(path))) {
+			rebuildIndex(path, dataChannel);
+		}
+		data = map(dataChannel);
+		indexChannel = FileChannel.open(indexPath(path), StandardOpenOption.READ);
+		index = map(indexChannel);
+		size = (int) (indexChannel.size() / 8);
+	}
+
+
+	//número de partidas
+	public int size() {
+		return size;
+	}
+
+
+	public int moveCount(int game) {
+		return data.getShort(offset(game)) & 0xFFFF;
+	}
+
+
+	//RESULT_WHITE, RESULT_BLACK, RESULT_DRAW ou RESULT_UNKNOWN
+	public int result(int game) {
+		return data.get(offset(game) + 2);
+	}
+
+
+	//FEN da posição de início, ou null se for a posição inicial padrão
+	public String startFen(int game) {
+		int offset = offset(game);
+		if ((data.get(offset + 3) & FLAG_FEN) == 0) {
+			return null;
+		}
+		byte[] bytes = new byte[data.getShort(offset + 4) & 0xFFFF];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = data.get(offset + 6 + i);
+		}
+		return new String(bytes, StandardCharsets.US_ASCII);
+	}
+
+
+	//lance no formato de 16 bits (ver Move.compact)
+	public int rawMove(int game, int ply) {
+		return data.getShort(movesOffset(game) + ply * 2) & 0xFFFF;
+	}
+
+
+	//partida nova, com todos os lances jogados
+	public ChessMatch replay(int game) {
+		String fen = startFen(game);
+		ChessMatch match = (fen != null) ? Fen.parse(fen) : new ChessMatch();
+		replay(game, match);
+		return match;
+	}
+
+
+	//joga os lances da partida numa partida que está na posição de início; lê direto do arquivo mapeado,
+	//sem criar objetos além dos que a própria partida cria
+	public void replay(int game, ChessMatch match) {
+		int count = moveCount(game);
+		int position = movesOffset(game);
+		for (int i = 0; i < count; i++) {
+			int raw = data.getShort(position + i * 2) & 0xFFFF;
+			match.doMove(Move.expand(match.getBoard(), raw));
+		}
+	}
+
+
+	public PgnGame toPgn(int game) {
+		PgnGame pgn = new PgnGame();
+		String fen = startFen(game);
+		if (fen != null) {
+			pgn.setTag("SetUp", "1");
+			pgn.setTag("FEN", fen);
+		}
+		ChessMatch match = replay(game);
+		for (int move : match.getMoves()) {
+			pgn.addMove(move);
+		}
+		pgn.setResult(RESULTS[result(game)]);
+		pgn.setTag("Result", pgn.getResult());
+		return pgn;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		dataChannel.close();
+		indexChannel.close();
+	}
+
+
+	private int offset(int game) {
+		if (game < 0 || game >= size) {
+			throw new ChessException("Partida inexistente no arquivo: " + game);
+		}
+		return (int) index.getLong(game * 8);
+	}
+
+
+	private int movesOffset(int game) {
+		int offset = offset(game);
+		if ((data.get(offset + 3) & FLAG_FEN) == 0) {
+			return offset + 4;
+		}
+		return offset + 6 + (data.getShort(offset + 4) & 0xFFFF);
+	}
+
+
+	//refaz o arquivo de índice percorrendo os registros de dados; um último registro incompleto
+	//(gravação interrompida) fica de fora. Devolve o número de partidas
+	public static int rebuildIndex(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			checkHeader(channel, path);
+			rebuildIndex(path, channel);
+		}
+		return (int) (Files.size(indexPath(path)) / 8);
+	}
+
+
+	//devolve onde termina o último registro completo, que é onde o próximo deve ser gravado
+	//(lê os dados pelo canal, sem mapear, para que o GameArchiveWriter possa truncar o arquivo depois)
+	static long rebuildIndex(Path path, FileChannel data) throws IOException {
+		try (FileChannel channel = FileChannel.open(indexPath(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer offsets = ByteBuffer.allocate(8 * 4096);
+			ByteBuffer header = ByteBuffer.allocate(6);
+			long offset = HEADER_SIZE;
+			long end;
+			while ((end = recordEnd(data, offset, header)) > 0) {
+				if (!offsets.hasRemaining()) {
+					flush(channel, offsets);
+				}
+				offsets.putLong(offset);
+				offset = end;
+			}
+			flush(channel, offsets);
+			return offset;
+		}
+	}
+
+
+	//o índice confere se tem um long por registro e o último registro indexado termina no fim dos dados
+	static boolean indexMatches(FileChannel data, Path indexPath) throws IOException {
+		if (!Files.exists(indexPath)) {
+			return false;
+		}
+		long length = Files.size(indexPath);
+		if (length % 8 != 0) {
+			return false;
+		}
+		if (length == 0) {
+			return data.size() == HEADER_SIZE;
+		}
+		ByteBuffer entry = ByteBuffer.allocate(8);
+		try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+			if (!read(channel, entry, length - 8)) {
+				return false;
+			}
+		}
+		long last = entry.getLong();
+		return last >= HEADER_SIZE && recordEnd(data, last, ByteBuffer.allocate(6)) == data.size();
+	}
+
+
+	//fim do registro que começa em offset, ou -1 se ele não couber inteiro nos dados
+	private static long recordEnd(FileChannel data, long offset, ByteBuffer header) throws IOException {
+		long limit = data.size();
+		header.clear();
+		header.limit((int) Math.min(6, Math.max(0, limit - offset)));
+		if (header.limit() < 4 || !read(data, header, offset)) {
+			return -1;
+		}
+		int moves = header.getShort(0) & 0xFFFF;
+		long end = offset + 4;
+		if ((header.get(3) & FLAG_FEN) != 0) {
+			if (header.limit() < 6) {
+				return -1;
+			}
+			end += 2 + (header.getShort(4) & 0xFFFF);
+		}
+		end += moves * 2L;
+		return (end <= limit) ? end : -1;
+	}
+
+
+	//lê até encher o buffer a partir da posição; devolve false se o arquivo acabar antes (o buffer volta pronto para leitura)
+	private static boolean read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				return false;
+			}
+		}
+		buffer.flip();
+		return true;
+	}
+
+
+	private static MappedByteBuffer map(FileChannel channel) throws IOException {
+		if (channel.size() > Integer.MAX_VALUE) {
+			throw new IOException("Arquivo maior que 2 GB: divida o arquivo em partes");
+		}
+		return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+	}
+
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+
+	static Path indexPath(Path path) {
+		return path.resolveSibling(path.getFileName() + ".idx");
+	}
+
+
+	static void checkHeader(FileChannel channel, Path path) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+		}
+		header.flip();
+		if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+			throw new IOException("Arquivo de partidas inválido: " + path);
+		}
+	}
+
+
+	//uso: GameArchive convert <entrada.pgn> <saída>  converte PGN para o formato binário
+	//     GameArchive scan <arquivo>                 joga todas as partidas e mostra a vazão
+	//     GameArchive pgn <arquivo> <n>              mostra a partida n em PGN
+	//     GameArchive index <arquivo>                refaz o índice a partir dos dados
+	public static void main(String[] args) throws IOException {
+		if (args.length >= 3 && args[0].equals("convert")) {
+			long start = System.nanoTime();
+			long[] count = new long[1];
+			try (PgnReader reader = PgnReader.open(Paths.get(args[1]));
+					GameArchiveWriter writer = new GameArchiveWriter(Paths.get(args[2]))) {
+				PgnGame game;
+				while ((game = reader.next()) != null) {
+					if (game.getError() == null) {
+						writer.append(game);
+						count[0]++;
+					}
+				}
+			}
+			System.out.printf("%,d games in %.2f s%n", count[0], (System.nanoTime() - start) / 1e9);
+			return;
+		}
+		if (args.length >= 2 && args[0].equals("index")) {
+			System.out.printf("%,d games%n", rebuildIndex(Paths.get(args[1])));
+			return;
+		}
+		try (GameArchive archive = new GameArchive(Paths.get(args[1]))) {
+			if (args[0].equals("pgn")) {
+				PgnWriter writer = new PgnWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+				writer.write(archive.toPgn(Integer.parseInt(args[2])));
+				writer.flush();
+				return;
+			}
+			long start = System.nanoTime();
+			long moves = 0;
+			for (int i = 0; i < archive.size(); i++) {
+				moves += archive.replay(i).getMoves().length;
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.printf("%,d games, %,d moves in %.2f s (%,.0f games/s, %,.0f moves/s)%n",
+					archive.size(), moves, seconds, archive.size() / seconds, moves / seconds);
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+package chess.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.ChessMatch;
+import chess.Fen;
+import chess.Move;
+import chess.pgn.PgnGame;
+
+//grava partidas no arquivo binário (ver GameArchive), só acrescentando no final:
+//os registros vão para o arquivo de dados e a posição de cada um para o arquivo de índice
+public class GameArchiveWriter implements Closeable {
+
+	private FileChannel data;
+	private FileChannel index;
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+	private ByteBuffer offset = ByteBuffer.allocateDirect(8);
+	private long position;
+
+
+	public GameArchiveWriter(Path path) throws IOException {
+		data = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+		position = data.size();
+		if (position == 0) {
+			buffer.putInt(GameArchive.MAGIC).putInt(GameArchive.VERSION);
+			buffer.flip();
+			write(data, buffer, 0);
+			position = GameArchive.HEADER_SIZE;
+			//um .idx que sobrou de outro arquivo com o mesmo nome não vale mais
+			Files.deleteIfExists(GameArchive.indexPath(path));
+		}
+		else {
+			GameArchive.checkHeader(data, path);
+			//índice ausente ou truncado é refeito a partir dos dados; um último registro incompleto
+			//(gravação interrompida) é descartado e o próximo grava por cima
+			if (!GameArchive.indexMatches(data, GameArchive.indexPath(path))) {
+				position = GameArchive.rebuildIndex(path, data);
+				data.truncate(position);
+			}
+		}
+		index = FileChannel.open(GameArchive.indexPath(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		index.position(index.size());
+		data.position(position);
+	}
+
+
+	public void append(PgnGame game) throws IOException {
+		int[] moves = new int[game.getMoveCount()];
+		for (int i = 0; i < moves.length; i++) {
+			moves[i] = game.getMove(i);
+		}
+		append(moves, game.getTag("FEN"), resultCode(game.getResult()));
+	}
+
+
+	public void append(ChessMatch match, String result) throws IOException {
+		String fen = (match.getInitialPosition() != null) ? Fen.write(match.getInitialPosition()) : null;
+		append(match.getMoves(), fen, resultCode(result));
+	}
+
+
+	//registro: nº de lances (u16), resultado (u8), flags (u8), [FEN: tamanho (u16) + bytes], lances (u16 cada)
+	private void append(int[] moves, String fen, int result) throws IOException {
+		if (moves.length > 0xFFFF) {
+			throw new IllegalArgumentException("Partida longa demais: " + moves.length + " lances");
+		}
+		byte[] fenBytes = (fen != null) ? fen.getBytes(StandardCharsets.US_ASCII) : null;
+		int size = 4 + ((fenBytes != null) ? 2 + fenBytes.length : 0) + moves.length * 2;
+		if (buffer.capacity() < size) {
+			buffer = ByteBuffer.allocateDirect(size);
+		}
+		buffer.clear();
+		buffer.putShort((short) moves.length);
+		buffer.put((byte) result);
+		buffer.put((byte) ((fenBytes != null) ? GameArchive.FLAG_FEN : 0));
+		if (fenBytes != null) {
+			buffer.putShort((short) fenBytes.length);
+			buffer.put(fenBytes);
+		}
+		for (int move : moves) {
+			buffer.putShort((short) Move.compact(move));
+		}
+		buffer.flip();
+		write(data, buffer, position);
+
+		offset.clear();
+		offset.putLong(position);
+		offset.flip();
+		while (offset.hasRemaining()) {
+			index.write(offset);
+		}
+		position += size;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		data.close();
+		index.close();
+	}
+
+
+	private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+
+	private static int resultCode(String result) {
+		if (PgnGame.WHITE_WINS.equals(result)) return GameArchive.RESULT_WHITE;
+		if (PgnGame.BLACK_WINS.equals(result)) return GameArchive.RESULT_BLACK;
+		if (PgnGame.DRAW.equals(result)) return GameArchive.RESULT_DRAW;
+		return GameArchive.RESULT_UNKNOWN;
+	}
+
+}
@@ -0,0 +1,147 @@
+package chess.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Move;
+import chess.MoveBuffer;
+import chess.PieceType;
+import chess.engine.Evaluator;
+
+//benchmarks dos caminhos mais usados: geração de movimentos por peça, validação e execução
+//de movimentos, check, xeque-mate e conversões usadas pela interface
+//uso: Benchmarks [filtro] [--quick]
+public class Benchmarks {
+
+	public static void main(String[] args) {
+		String filter = "";
+		boolean quick = false;
+		for (String a : args) {
+			if (a.equals("--quick")) {
+				quick = true;
+			}
+			else {
+				filter = a;
+			}
+		}
+		Microbenchmark harness = quick ? new Microbenchmark(2, 3, 200) : new Microbenchmark(5, 10, 1000);
+
+		System.out.println("Java " + System.getProperty("java.version") + ", " + Runtime.getRuntime().availableProcessors() + " processors");
+		for (String fixture : Fixtures.names()) {
+			for (Benchmark b : benchmarks(fixture)) {
+				if (b.name.contains(filter)) {
+					System.out.println(harness.measure(b.name, b.operation));
+				}
+			}
+		}
+	}
+
+
+	private static class Benchmark {
+
+		String name;
+		Microbenchmark.Operation operation;
+
+		Benchmark(String name, Microbenchmark.Operation operation) {
+			this.name = name;
+			this.operation = operation;
+		}
+	}
+
+
+	private static List<Benchmark> benchmarks(String fixture) {
+		List<Benchmark> list = new ArrayList<>();
+		ChessMatch match = Fixtures.byName(fixture);
+		ChessPiece[][] pieces = match.getPieces();
+
+		//Piece.possibleMoves() para a primeira peça de cada classe
+		for (PieceType type : PieceType.values()) {
+			ChessPiece piece = find(pieces, type);
+			if (piece != null) {
+				String name = piece.getClass().getSimpleName();
+				list.add(new Benchmark("possibleMoves/" + name + "/" + fixture, () -> piece.possibleMoves().length));
+			}
+		}
+
+		List<ChessPiece> own = new ArrayList<>();
+		for (ChessPiece[] row : pieces) {
+			for (ChessPiece p : row) {
+				if (p != null && p.getColor() == match.getCurrentPlayer()) {
+					own.add(p);
+				}
+			}
+		}
+		list.add(new Benchmark("isThereAnyPossibleMove(all own)/" + fixture, () -> {
+			long count = 0;
+			for (ChessPiece p : own) {
+				if (p.isThereAnyPossibleMove()) {
+					count++;
+				}
+			}
+			return count;
+		}));
+
+		MoveBuffer buffer = new MoveBuffer();
+		list.add(new Benchmark("legalMoves/" + fixture, () -> {
+			match.legalMoves(buffer);
+			return buffer.size();
+		}));
+
+		//performChessMove + undoMove do primeiro movimento legal
+		match.legalMoves(buffer);
+		int move = buffer.get(0);
+		ChessPosition source = position(Move.from(move));
+		ChessPosition target = position(Move.to(move));
+		list.add(new Benchmark("performChessMove+undo/" + fixture, () -> {
+			match.performChessMove(source, target);
+			match.undoMove(move);
+			return move;
+		}));
+		//lance recusado (peça para a própria casa): código de resultado contra exceção
+		int from = Move.from(move);
+		list.add(new Benchmark("tryMove(illegal)/" + fixture, () -> match.tryMove(from, from).ordinal()));
+		list.add(new Benchmark("performChessMove(illegal)/" + fixture, () -> {
+			try {
+				match.performChessMove(source, source);
+				return 0;
+			}
+			catch (ChessException e) {
+				return e.getMessage().length();
+			}
+		}));
+
+		list.add(new Benchmark("testCheck/" + fixture, () -> match.isInCheck() ? 1 : 0));
+		list.add(new Benchmark("testCheckMate/" + fixture, () -> match.isCheckMate() ? 1 : 0));
+		//avaliação com os termos incrementais do tabuleiro e recalculada peça a peça
+		Evaluator evaluator = new Evaluator();
+		list.add(new Benchmark("evaluate/" + fixture, () -> evaluator.evaluate(match)));
+		list.add(new Benchmark("evaluateFromScratch/" + fixture, () -> evaluator.evaluateFromScratch(match)));
+		list.add(new Benchmark("getPieces/" + fixture, () -> match.getPieces().length));
+
+		ChessPiece any = own.get(0);
+		list.add(new Benchmark("ChessPosition.fromPosition/" + fixture, () -> any.getChessPosition().getRow()));
+		return list;
+	}
+
+
+	private static ChessPiece find(ChessPiece[][] pieces, PieceType type) {
+		for (ChessPiece[] row : pieces) {
+			for (ChessPiece p : row) {
+				if (p != null && p.getType() == type) {
+					return p;
+				}
+			}
+		}
+		return null;
+	}
+
+
+	private static ChessPosition position(int square) {
+		return new ChessPosition((char) ('A' + (square & 7)), 8 - (square >>> 3));
+	}
+
+}
@@ -0,0 +1,55 @@
+package chess.benchmark;
+
+import chess.ChessMatch;
+import chess.Fen;
+
+//posições usadas nos benchmarks: abertura, meio-jogo e final
+public class Fixtures {
+
+	//Ruy Lopez: 1.e4 e5 2.Nf3 Nc6 3.Bb5 a6
+	private static final String OPENING = "r1bqkbnr/1ppp1ppp/p1n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 0 4";
+
+	//Giuoco Piano com roques dos dois lados
+	//(e4 e5 Nf3 Nc6 Bc4 Bc5 c3 Nf6 d3 d6 O-O O-O Re1 a6 Bb3 Ba7 Nbd2 Be6 Nf1 h6)
+	private static final String MIDDLEGAME = "r2q1rk1/bpp2pp1/p1npbn1p/4p3/4P3/1BPP1N2/PP3PPP/R1BQRNK1 w - - 0 11";
+
+	//torres e peões, obtido por uma partida que prioriza capturas até restarem 8 peças
+	private static final String ENDGAME = "5rk1/8/1p1p2p1/3r4/8/6K1/4P3/8 w - - 0 39";
+
+
+	private Fixtures() {
+	}
+
+
+	public static ChessMatch opening() {
+		return Fen.parse(OPENING);
+	}
+
+
+	public static ChessMatch middlegame() {
+		return Fen.parse(MIDDLEGAME);
+	}
+
+
+	public static ChessMatch endgame() {
+		return Fen.parse(ENDGAME);
+	}
+
+
+	public static String[] names() {
+		return new String[] { "opening", "middlegame", "endgame" };
+	}
+
+
+	public static ChessMatch byName(String name) {
+		switch (name) {
+		case "opening":
+			return opening();
+		case "middlegame":
+			return middlegame();
+		default:
+			return endgame();
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+package chess.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+//executor de microbenchmarks no estilo do JMH (iterações de aquecimento e de medição com tempo fixo),
+//sem dependências externas: mede ns/op, ops/s e bytes alocados por operação na thread atual
+public class Microbenchmark {
+
+	//operação medida; o valor devolvido é consumido para que o JIT não elimine o trabalho
+	public interface Operation {
+		long run();
+	}
+
+	private static volatile long sink;
+
+	private int warmupIterations;
+	private int measurementIterations;
+	private long iterationMillis;
+	private com.sun.management.ThreadMXBean threads;
+
+
+	public Microbenchmark(int warmupIterations, int measurementIterations, long iterationMillis) {
+		this.warmupIterations = warmupIterations;
+		this.measurementIterations = measurementIterations;
+		this.iterationMillis = iterationMillis;
+		threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		threads.setThreadAllocatedMemoryEnabled(true);
+	}
+
+
+	public Result measure(String name, Operation operation) {
+		for (int i = 0; i < warmupIterations; i++) {
+			iteration(operation);
+		}
+
+		double[] nanosPerOp = new double[measurementIterations];
+		long totalOps = 0;
+		long totalBytes = 0;
+		long gcCount = gcCount();
+		for (int i = 0; i < measurementIterations; i++) {
+			long threadId = Thread.currentThread().getId();
+			long bytes = threads.getThreadAllocatedBytes(threadId);
+			long[] r = iteration(operation);
+			totalBytes += threads.getThreadAllocatedBytes(threadId) - bytes;
+			totalOps += r[0];
+			nanosPerOp[i] = (double) r[1] / r[0];
+		}
+		return new Result(name, nanosPerOp, (double) totalBytes / totalOps, gcCount() - gcCount);
+	}
+
+
+	//devolve {operações, nanossegundos}; mede em lotes para não chamar nanoTime a cada operação
+	private long[] iteration(Operation operation) {
+		long deadline = System.nanoTime() + iterationMillis * 1_000_000L;
+		long ops = 0;
+		long acc = 0;
+		long start = System.nanoTime();
+		long now;
+		int batch = 1;
+		do {
+			for (int i = 0; i < batch; i++) {
+				acc += operation.run();
+			}
+			ops += batch;
+			if (batch < 1024) {
+				batch <<= 1;
+			}
+			now = System.nanoTime();
+		} while (now < deadline);
+		sink += acc;
+		return new long[] { ops, now - start };
+	}
+
+
+	private static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+
+
+	public static class Result {
+
+		private String name;
+		private double mean;
+		private double error;
+		private double bytesPerOp;
+		private long gcCount;
+
+		Result(String name, double[] samples, double bytesPerOp, long gcCount) {
+			this.name = name;
+			this.bytesPerOp = bytesPerOp;
+			this.gcCount = gcCount;
+			double sum = 0;
+			for (double s : samples) {
+				sum += s;
+			}
+			mean = sum / samples.length;
+			double squares = 0;
+			for (double s : samples) {
+				squares += (s - mean) * (s - mean);
+			}
+			error = samples.length > 1 ? Math.sqrt(squares / (samples.length - 1)) : 0;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public double getNanosPerOp() {
+			return mean;
+		}
+
+		public double getBytesPerOp() {
+			return bytesPerOp;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-45s %12.1f +- %8.1f ns/op %14.0f ops/s %10.1f B/op %5d gc", name, mean, error, 1e9 / mean, bytesPerOp, gcCount);
+		}
+	}
+
+}
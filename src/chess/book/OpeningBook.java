@@ -0,0 +1,188 @@
+package chess.book;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import chess.ChessMatch;
+import chess.Fen;
+import chess.Move;
+import chess.MoveBuffer;
+
+//livro de aberturas num arquivo ordenado pelo hash da posição, lido por memória mapeada
+//(somente leitura: vários processos abrindo o mesmo livro dividem as páginas no cache do sistema)
+//cabeçalho de 16 bytes ("CHBK", versão, número de entradas) e entradas de 16 bytes:
+//hash da posição (8) | lance compacto (2, ver Move.compact) | peso (2) | partidas (4)
+public class OpeningBook implements Closeable {
+
+	static final int MAGIC = 0x4348424B;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final int ENTRY_SIZE = 16;
+
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private int size;
+
+	private MoveBuffer legal = new MoveBuffer();
+	private int[] moves = new int[64];
+	private int[] weights = new int[64];
+
+
+	public OpeningBook(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		if (channel.size() > Integer.MAX_VALUE) {
+			throw new IOException("Livro maior que 2 GB: " + path);
+		}
+		buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("Livro de aberturas inválido: " + path);
+		}
+		size = (int) buffer.getLong(8);
+		if ((long) HEADER_SIZE + (long) size * ENTRY_SIZE > buffer.capacity()) {
+			throw new IOException("Livro de aberturas truncado: " + path);
+		}
+	}
+
+
+	//número de entradas
+	public int size() {
+		return size;
+	}
+
+
+	//escreve os lances compactos e os pesos da posição nos arrays e devolve quantos são (no máximo o tamanho dos arrays)
+	public int entries(long hash, int[] compactMoves, int[] moveWeights) {
+		int count = 0;
+		for (int i = lowerBound(hash); i < size && hash(i) == hash && count < compactMoves.length; i++) {
+			int offset = HEADER_SIZE + i * ENTRY_SIZE;
+			compactMoves[count] = buffer.getShort(offset + 8) & 0xFFFF;
+			moveWeights[count] = buffer.getShort(offset + 10) & 0xFFFF;
+			count++;
+		}
+		return count;
+	}
+
+
+	public boolean contains(long hash) {
+		int i = lowerBound(hash);
+		return i < size && hash(i) == hash;
+	}
+
+
+	//lance do livro sorteado pelo peso, ou Move.NONE se a posição não estiver no livro
+	//(lances que não são legais na partida, por colisão de hash, são descartados)
+	//não é seguro para várias threads: cada thread deve abrir o seu OpeningBook (o mapeamento é compartilhado)
+	public int probe(ChessMatch match, Random random) {
+		int count = entries(match.getPositionHash(), moves, weights);
+		if (count == 0) {
+			return Move.NONE;
+		}
+		match.legalMoves(legal);
+		int total = 0;
+		for (int i = 0; i < count; i++) {
+			moves[i] = legalMove(moves[i]);
+			if (moves[i] == Move.NONE) {
+				weights[i] = 0;
+			}
+			total += weights[i];
+		}
+		if (total == 0) {
+			return Move.NONE;
+		}
+		int pick = random.nextInt(total);
+		for (int i = 0; i < count; i++) {
+			pick -= weights[i];
+			if (pick < 0) {
+				return moves[i];
+			}
+		}
+		return Move.NONE;
+	}
+
+
+	//lance de maior peso, ou Move.NONE
+	public int best(ChessMatch match) {
+		int count = entries(match.getPositionHash(), moves, weights);
+		match.legalMoves(legal);
+		int best = Move.NONE;
+		int bestWeight = -1;
+		for (int i = 0; i < count; i++) {
+			int move = legalMove(moves[i]);
+			if (weights[i] > bestWeight && move != Move.NONE) {
+				best = move;
+				bestWeight = weights[i];
+			}
+		}
+		return best;
+	}
+
+
+	//lance legal (em legal) com a forma compacta do livro, ou Move.NONE; a entrada não é decodificada
+	//no tabuleiro, porque numa colisão ou num arquivo corrompido a casa de origem pode estar vazia
+	private int legalMove(int compact) {
+		for (int i = 0; i < legal.size(); i++) {
+			if (Move.compact(legal.get(i)) == compact) {
+				return legal.get(i);
+			}
+		}
+		return Move.NONE;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+
+	//primeira entrada com hash maior ou igual ao informado (busca binária)
+	private int lowerBound(long hash) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (hash(mid) < hash) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+
+	private long hash(int entry) {
+		return buffer.getLong(HEADER_SIZE + entry * ENTRY_SIZE);
+	}
+
+
+	//uso: OpeningBook <livro> [FEN]  mostra os lances do livro na posição e o tempo de consulta
+	public static void main(String[] args) throws IOException {
+		try (OpeningBook book = new OpeningBook(Paths.get(args[0]))) {
+			ChessMatch match = (args.length > 1) ? Fen.parse(args[1]) : new ChessMatch();
+			int[] compact = new int[64];
+			int[] w = new int[64];
+			int count = book.entries(match.getPositionHash(), compact, w);
+			match.legalMoves(book.legal);
+			for (int i = 0; i < count; i++) {
+				int move = book.legalMove(compact[i]);
+				System.out.println(((move == Move.NONE) ? "(ilegal)" : Move.toString(move)) + " " + w[i]);
+			}
+			Random random = new Random();
+			int iterations = 1_000_000;
+			long start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				book.probe(match, random);
+			}
+			System.out.printf("%d entries, probe %.2f us%n", book.size(), (System.nanoTime() - start) / 1e3 / iterations);
+		}
+	}
+
+}
@@ -0,0 +1,148 @@
+package chess.book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.Fen;
+import chess.Move;
+import chess.archive.GameArchive;
+
+//monta o livro de aberturas a partir dos arquivos de partidas: para cada posição dos primeiros lances,
+//soma o resultado obtido por quem jogou cada lance (peso = 2 por vitória + 1 por empate)
+public class OpeningBookBuilder {
+
+	private int maxPly = 20;
+	private int minGames = 1;
+
+	//hash da posição -> lance compacto -> { partidas, peso }
+	private Map<Long, Map<Integer, int[]>> positions = new HashMap<>();
+
+
+	public void setMaxPly(int maxPly) {
+		this.maxPly = maxPly;
+	}
+
+
+	//lances jogados em menos partidas que isso ficam fora do livro
+	public void setMinGames(int minGames) {
+		this.minGames = minGames;
+	}
+
+
+	public void addArchive(GameArchive archive) {
+		for (int game = 0; game < archive.size(); game++) {
+			int result = archive.result(game);
+			if (result == GameArchive.RESULT_UNKNOWN) {
+				continue;
+			}
+			String fen = archive.startFen(game);
+			ChessMatch match = (fen != null) ? Fen.parse(fen) : new ChessMatch();
+			int plies = Math.min(maxPly, archive.moveCount(game));
+			for (int ply = 0; ply < plies; ply++) {
+				int compact = archive.rawMove(game, ply);
+				add(match.getPositionHash(), compact, score(result, match.getCurrentPlayer()));
+				match.doMove(Move.expand(match.getBoard(), compact));
+			}
+		}
+	}
+
+
+	public void add(long hash, int compactMove, int score) {
+		int[] stats = positions.computeIfAbsent(hash, h -> new HashMap<>()).computeIfAbsent(compactMove, m -> new int[2]);
+		stats[0]++;
+		stats[1] += score;
+	}
+
+
+	//grava as entradas ordenadas por hash e, na mesma posição, por peso decrescente
+	public int write(Path path) throws IOException {
+		long[] hashes = new long[positions.size()];
+		int n = 0;
+		for (Long hash : positions.keySet()) {
+			hashes[n++] = hash;
+		}
+		Arrays.sort(hashes);
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect(OpeningBook.ENTRY_SIZE * 4096);
+		int entries = 0;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			channel.position(OpeningBook.HEADER_SIZE);
+			for (long hash : hashes) {
+				List<Map.Entry<Integer, int[]>> moves = new ArrayList<>(positions.get(hash).entrySet());
+				moves.sort((a, b) -> Integer.compare(b.getValue()[1], a.getValue()[1]));
+				for (Map.Entry<Integer, int[]> move : moves) {
+					int[] stats = move.getValue();
+					if (stats[0] < minGames || stats[1] == 0) {
+						continue;
+					}
+					if (!buffer.hasRemaining()) {
+						flush(channel, buffer);
+					}
+					buffer.putLong(hash);
+					buffer.putShort((short) (int) move.getKey());
+					buffer.putShort((short) Math.min(stats[1], 0xFFFF));
+					buffer.putInt(stats[0]);
+					entries++;
+				}
+			}
+			flush(channel, buffer);
+
+			buffer.putInt(OpeningBook.MAGIC).putInt(OpeningBook.VERSION).putLong(entries);
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer, buffer.position());
+			}
+		}
+		return entries;
+	}
+
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+
+	private static int score(int result, Color mover) {
+		if (result == GameArchive.RESULT_DRAW) {
+			return 1;
+		}
+		boolean whiteWon = result == GameArchive.RESULT_WHITE;
+		return (whiteWon == (mover == Color.WHITE)) ? 2 : 0;
+	}
+
+
+	//uso: OpeningBookBuilder <livro> <arquivo de partidas>... [--plies N] [--min N]
+	public static void main(String[] args) throws IOException {
+		OpeningBookBuilder builder = new OpeningBookBuilder();
+		List<String> archives = new ArrayList<>();
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("--plies")) builder.setMaxPly(Integer.parseInt(args[++i]));
+			else if (args[i].equals("--min")) builder.setMinGames(Integer.parseInt(args[++i]));
+			else archives.add(args[i]);
+		}
+		long start = System.nanoTime();
+		for (String name : archives) {
+			try (GameArchive archive = new GameArchive(Paths.get(name))) {
+				builder.addArchive(archive);
+			}
+		}
+		int entries = builder.write(Paths.get(args[0]));
+		System.out.printf("%,d entries in %.2f s%n", entries, (System.nanoTime() - start) / 1e9);
+	}
+
+}
@@ -0,0 +1,99 @@
+package chess.engine;
+
+//sinal de parada de uma busca, compartilhado entre as threads: cancelamento explícito ou prazo vencido
+//as threads consultam check (leituras voláteis e o relógio) a cada poucos nós; o prazo pode ser
+//definido depois do início da busca (ex.: ponderhit do UCI, quando a busca de ponder passa a ter tempo),
+//junto com o prazo para começar outra iteração, que a busca confere entre as iterações
+public class CancellationToken {
+
+	public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+	private volatile boolean cancelled;
+	private volatile long deadline;
+	//instante depois do qual a busca não começa outra iteração (o tempo ideal), sem interromper a atual
+	private volatile long iterationDeadline = NO_DEADLINE;
+	private final CancellationToken parent;
+
+
+	public CancellationToken() {
+		this(NO_DEADLINE, null);
+	}
+
+
+	private CancellationToken(long deadline, CancellationToken parent) {
+		this.deadline = deadline;
+		this.parent = parent;
+	}
+
+
+	//deadline: instante de System.nanoTime() em que a busca deve parar
+	public static CancellationToken withDeadline(long deadline) {
+		return new CancellationToken(deadline, null);
+	}
+
+
+	public static CancellationToken afterMillis(long millis) {
+		return withDeadline(System.nanoTime() + millis * 1_000_000L);
+	}
+
+
+	//token cancelado junto com este (inclusive pelo prazo deste), mas que pode ser cancelado sozinho
+	public CancellationToken child() {
+		return new CancellationToken(NO_DEADLINE, this);
+	}
+
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+
+	public boolean isCancelled() {
+		return cancelled || (parent != null && parent.isCancelled());
+	}
+
+
+	//como isCancelled, mas também cancela se o prazo (deste ou do pai) já venceu
+	public boolean check() {
+		if (cancelled) {
+			return true;
+		}
+		long limit = deadline;
+		if ((limit != NO_DEADLINE && System.nanoTime() - limit >= 0) || (parent != null && parent.check())) {
+			cancelled = true;
+			return true;
+		}
+		return false;
+	}
+
+
+	public long getDeadline() {
+		return deadline;
+	}
+
+
+	public void setDeadline(long deadline) {
+		this.deadline = deadline;
+	}
+
+
+	//se já passou o prazo para começar outra iteração (deste token ou do pai)
+	public boolean iterationExpired(long now) {
+		long limit = iterationDeadline;
+		if (limit != NO_DEADLINE && now - limit >= 0) {
+			return true;
+		}
+		return parent != null && parent.iterationExpired(now);
+	}
+
+
+	public long getIterationDeadline() {
+		return iterationDeadline;
+	}
+
+
+	public void setIterationDeadline(long iterationDeadline) {
+		this.iterationDeadline = iterationDeadline;
+	}
+
+}
@@ -0,0 +1,403 @@
+package chess.engine;
+
+import java.util.Random;
+import java.util.function.Consumer;
+
+import chess.ChessBoard;
+import chess.ChessMatch;
+import chess.Color;
+import chess.Move;
+import chess.MoveBuffer;
+import chess.book.OpeningBook;
+import chess.tablebase.Tablebases;
+
+//busca alfa-beta (negamax) com aprofundamento iterativo e principal variation search
+//os movimentos são jogados e desfeitos na própria partida (doMove/undoMove), que volta intacta ao final
+public class Engine {
+
+	public static final int MATE = 31000;
+	public static final int INFINITY = 32000;
+	public static final int MAX_PLY = 128;
+
+	//limites (nós, cancelamento, prazo) são conferidos a cada 128 nós: bem menos de 1 ms de busca
+	private static final int CHECK_INTERVAL = 127;
+
+	private Evaluator evaluator;
+	private TranspositionTable table;
+	private StaticExchange exchange = new StaticExchange();
+	private MoveOrdering ordering = new MoveOrdering(exchange);
+	private Consumer<SearchResult> listener;
+	private OpeningBook book;
+	private Tablebases tablebases;
+	private Random random = new Random();
+
+	//um buffer de movimentos por ply, reaproveitado entre as buscas
+	private MoveBuffer[] buffers;
+
+	//lance jogado em cada ply (para o contra-lance) e lances quietos já tentados no ply (para o histórico)
+	private int[] playedMoves;
+	private int[][] quietMoves;
+
+	//tabela triangular da variante principal: pvTable[ply] guarda a melhor linha a partir de ply
+	private int[][] pvTable;
+	private int[] pvLength;
+
+	private ChessMatch match;
+	private long nodes;
+	private long nodeLimit;
+	private volatile boolean stopped;
+	private CancellationToken token = new CancellationToken();
+	private long deadline = CancellationToken.NO_DEADLINE;
+
+	//melhor lance até agora (da última iteração completa ou da raiz da atual), legível de outra thread
+	private volatile int bestSoFar;
+
+	//threads auxiliares da busca paralela começam em profundidades alternadas para divergir da principal
+	//e não avançam a geração da tabela compartilhada
+	private boolean helper;
+	private int startDepth = 1;
+
+	//variante principal da iteração anterior, tentada primeiro enquanto a busca a segue
+	private int[] previousPv;
+	private boolean followPv;
+
+
+	public Engine() {
+		this(new Evaluator(), new TranspositionTable(16));
+	}
+
+
+	public Engine(Evaluator evaluator, TranspositionTable table) {
+		this.evaluator = evaluator;
+		this.table = table;
+		buffers = new MoveBuffer[MAX_PLY];
+		for (int i = 0; i < MAX_PLY; i++) {
+			buffers[i] = new MoveBuffer();
+		}
+		playedMoves = new int[MAX_PLY];
+		quietMoves = new int[MAX_PLY][256];
+		pvTable = new int[MAX_PLY][MAX_PLY];
+		pvLength = new int[MAX_PLY];
+	}
+
+
+	//chamado ao final de cada iteração completa
+	public void setListener(Consumer<SearchResult> listener) {
+		this.listener = listener;
+	}
+
+
+	//interrompe a busca em andamento (pode ser chamado de outra thread)
+	public void stop() {
+		stopped = true;
+	}
+
+
+	void setHelper(int index) {
+		helper = true;
+		startDepth = 1 + (index & 1);
+	}
+
+
+	//com livro, posições do livro são respondidas sem busca (profundidade 0 no resultado)
+	public void setBook(OpeningBook book) {
+		this.book = book;
+	}
+
+
+	//com tabelas de finais, posições com poucas peças (abaixo da raiz) recebem o valor exato da tabela
+	public void setTablebases(Tablebases tablebases) {
+		this.tablebases = tablebases;
+	}
+
+
+	public TranspositionTable getTable() {
+		return table;
+	}
+
+
+	public SearchResult search(ChessMatch match, SearchLimits limits) {
+		this.match = match;
+		nodes = 0;
+		nodeLimit = limits.getNodes();
+		stopped = false;
+		token = (limits.getToken() != null) ? limits.getToken() : new CancellationToken();
+		TimeManager time = new TimeManager(limits, System.nanoTime());
+		deadline = time.getDeadline();
+		previousPv = new int[0];
+		if (!helper) {
+			table.newSearch();
+		}
+		ordering.newSearch();
+		long start = System.currentTimeMillis();
+
+		if (book != null && !helper) {
+			int bookMove = book.probe(match, random);
+			if (bookMove != Move.NONE) {
+				bestSoFar = bookMove;
+				return new SearchResult(bookMove, 0, 0, 0, 0, new int[] { bookMove });
+			}
+		}
+
+		MoveBuffer rootMoves = new MoveBuffer();
+		match.legalMoves(rootMoves);
+		if (rootMoves.size() == 0) {
+			return new SearchResult(Move.NONE, match.isInCheck() ? -MATE : 0, 0, 0, 0, new int[0]);
+		}
+		bestSoFar = rootMoves.get(0);
+
+		SearchResult result = null;
+		for (int depth = Math.min(startDepth, limits.getDepth()); depth <= limits.getDepth(); depth++) {
+			followPv = true;
+			int score = negamax(depth, -INFINITY, INFINITY, 0);
+			//iteração interrompida: fica com o resultado da anterior
+			if (stopped && result != null) {
+				break;
+			}
+			int[] pv = new int[pvLength[0]];
+			System.arraycopy(pvTable[0], 0, pv, 0, pv.length);
+			if (pv.length == 0) {
+				pv = new int[] { rootMoves.get(0) };
+			}
+			previousPv = pv;
+			bestSoFar = pv[0];
+			result = new SearchResult(pv[0], score, depth, nodes, System.currentTimeMillis() - start, pv);
+			if (listener != null) {
+				listener.accept(result);
+			}
+			long now = System.nanoTime();
+			if (stopped || Math.abs(score) >= MATE - depth || time.shouldStop(now) || token.iterationExpired(now)) {
+				break;
+			}
+		}
+		return result;
+	}
+
+
+	private int negamax(int depth, int alpha, int beta, int ply) {
+		pvLength[ply] = ply;
+		if ((++nodes & CHECK_INTERVAL) == 0) {
+			checkLimits();
+		}
+		if (stopped) {
+			return 0;
+		}
+		if (ply > 0 && (match.isRepetition() || match.getHalfMoveClock() >= 100)) {
+			return 0;
+		}
+		if (ply > 0 && tablebases != null && Long.bitCount(match.getBoard().occupied()) <= tablebases.getMaxPieces()) {
+			int code = tablebases.probe(match);
+			if (code != Tablebases.NOT_FOUND) {
+				return tablebaseScore(code, ply);
+			}
+		}
+		if (depth == 0 || ply >= MAX_PLY - 1) {
+			return quiesce(alpha, beta, ply);
+		}
+
+		long hash = match.getPositionHash();
+		long entry = table.probe(hash);
+		int hashMove = Move.NONE;
+		if (entry != 0) {
+			hashMove = TranspositionTable.move(entry);
+			if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+				int score = fromTable(TranspositionTable.score(entry), ply);
+				int bound = TranspositionTable.bound(entry);
+				if (bound == TranspositionTable.EXACT
+						|| (bound == TranspositionTable.LOWER && score >= beta)
+						|| (bound == TranspositionTable.UPPER && score <= alpha)) {
+					return score;
+				}
+			}
+		}
+
+		MoveBuffer moves = buffers[ply];
+		match.legalMoves(moves);
+		if (moves.size() == 0) {
+			//mate mais próximo vale mais que mate distante
+			return match.isInCheck() ? -MATE + ply : 0;
+		}
+		//movimento da variante anterior (ou da tabela) primeiro; os demais saem em ordem de nota, um a um
+		int first = (followPv && ply < previousPv.length) ? previousPv[ply] : hashMove;
+		int previousMove = (ply > 0) ? playedMoves[ply - 1] : Move.NONE;
+		Color mover = match.getCurrentPlayer();
+		ordering.score(moves, match.getBoard(), mover, ply, first, previousMove);
+
+		int originalAlpha = alpha;
+		int bestMove = Move.NONE;
+		int quietCount = 0;
+		boolean pvNode = followPv;
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.pickNext(i);
+			boolean quiet = !Move.isCapture(move) && !Move.isPromotion(move);
+			followPv = pvNode && i == 0 && ply < previousPv.length && move == previousPv[ply];
+
+			playedMoves[ply] = move;
+			match.doMove(move);
+			int score;
+			if (i == 0) {
+				score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+			}
+			else {
+				//janela nula: só pesquisa de novo com a janela inteira se o movimento superar alfa
+				score = -negamax(depth - 1, -alpha - 1, -alpha, ply + 1);
+				if (score > alpha && score < beta) {
+					score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+				}
+			}
+			match.undoMove(move);
+
+			if (stopped) {
+				return 0;
+			}
+			if (score > alpha) {
+				alpha = score;
+				bestMove = move;
+				if (ply == 0) {
+					bestSoFar = move;
+				}
+				pvTable[ply][ply] = move;
+				System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+				pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+				if (alpha >= beta) {
+					if (quiet) {
+						ordering.update(mover, ply, depth, move, previousMove, quietMoves[ply], quietCount);
+					}
+					break;
+				}
+			}
+			if (quiet) {
+				quietMoves[ply][quietCount++] = move;
+			}
+		}
+
+		int bound = (alpha >= beta) ? TranspositionTable.LOWER : (alpha > originalAlpha) ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+		table.store(hash, bestMove, toTable(alpha, ply), depth, bound);
+		return alpha;
+	}
+
+
+	private void checkLimits() {
+		if (nodes >= nodeLimit || token.check() || (deadline != CancellationToken.NO_DEADLINE && System.nanoTime() - deadline >= 0)) {
+			stopped = true;
+		}
+	}
+
+
+	//busca de quiescência: no fim da profundidade nominal, continua só com capturas e promoções
+	//(todas as evasões, se em check) até a posição ficar quieta; quem joga pode ficar com a avaliação
+	//estática (stand pat) e capturas que perdem material pela SEE não são tentadas
+	private int quiesce(int alpha, int beta, int ply) {
+		pvLength[ply] = ply;
+		if ((++nodes & CHECK_INTERVAL) == 0) {
+			checkLimits();
+		}
+		if (stopped) {
+			return 0;
+		}
+		if (ply >= MAX_PLY - 1) {
+			return evaluator.evaluate(match);
+		}
+
+		boolean inCheck = match.isInCheck();
+		if (!inCheck) {
+			int standPat = evaluator.evaluate(match);
+			if (standPat >= beta) {
+				return standPat;
+			}
+			alpha = Math.max(alpha, standPat);
+		}
+
+		MoveBuffer moves = buffers[ply];
+		match.legalMoves(moves);
+		if (moves.size() == 0) {
+			return inCheck ? -MATE + ply : 0;
+		}
+		ChessBoard board = match.getBoard();
+		ordering.score(moves, board, match.getCurrentPlayer(), ply, Move.NONE, Move.NONE);
+
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.pickNext(i);
+			if (!inCheck) {
+				if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+					continue;
+				}
+				if (!Move.isPromotion(move) && !exchange.isAtLeast(board, move, 0)) {
+					continue;
+				}
+			}
+			playedMoves[ply] = move;
+			match.doMove(move);
+			int score = -quiesce(-beta, -alpha, ply + 1);
+			match.undoMove(move);
+
+			if (stopped) {
+				return 0;
+			}
+			if (score > alpha) {
+				alpha = score;
+				pvTable[ply][ply] = move;
+				System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+				pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+				if (alpha >= beta) {
+					break;
+				}
+			}
+		}
+		return alpha;
+	}
+
+
+	//vitória ou derrota da tabela de finais vira mate na distância indicada, contada a partir da raiz
+	private static int tablebaseScore(int code, int ply) {
+		if (Tablebases.isWin(code)) return MATE - ply - Tablebases.distance(code);
+		if (Tablebases.isLoss(code)) return -MATE + ply + Tablebases.distance(code);
+		return 0;
+	}
+
+
+	//na tabela, mates são guardados como distância a partir da posição, não da raiz
+	private static int toTable(int score, int ply) {
+		if (score >= MATE - MAX_PLY) return score + ply;
+		if (score <= -MATE + MAX_PLY) return score - ply;
+		return score;
+	}
+
+
+	private static int fromTable(int score, int ply) {
+		if (score >= MATE - MAX_PLY) return score - ply;
+		if (score <= -MATE + MAX_PLY) return score + ply;
+		return score;
+	}
+
+
+	//melhor lance encontrado até agora pela busca em andamento (ou pela última), Move.NONE antes da primeira
+	public int getBestMove() {
+		return bestSoFar;
+	}
+
+
+	public long getNodes() {
+		return nodes;
+	}
+
+
+	//uso: Engine [profundidade] [--movetime ms]  busca a partir da posição inicial e imprime cada iteração
+	public static void main(String[] args) {
+		SearchLimits limits = SearchLimits.depth(6);
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--movetime") && i + 1 < args.length) {
+				limits = SearchLimits.moveTime(Long.parseLong(args[++i]));
+			}
+			else {
+				limits.setDepth(Integer.parseInt(args[i]));
+			}
+		}
+		Engine engine = new Engine();
+		engine.setListener(System.out::println);
+		SearchResult result = engine.search(new ChessMatch(), limits);
+		System.out.println("bestmove " + Move.toString(result.getBestMove()));
+		System.out.println("hash: " + engine.getTable());
+	}
+
+}
@@ -0,0 +1,117 @@
+package chess.engine;
+
+import java.util.Random;
+
+import chess.ChessBoard;
+import chess.ChessMatch;
+import chess.Color;
+import chess.Fen;
+import chess.MoveBuffer;
+import chess.PieceSquareTables;
+import chess.PieceType;
+
+//avaliação estática da posição, do ponto de vista do jogador da vez:
+//material e tabelas peça-casa, interpolados entre meio-jogo e final pela fase do jogo
+//os termos são mantidos pelo ChessBoard a cada movimento, então a avaliação é O(1)
+public class Evaluator {
+
+	//valores em centipeões, na ordem de PieceType
+	public static final int[] PIECE_VALUES = PieceSquareTables.MIDDLEGAME_VALUES;
+
+	//posição de meio-jogo para medir o tempo no main (Giuoco Piano com roques dos dois lados)
+	private static final String SAMPLE = "r2q1rk1/bpp2pp1/p1npbn1p/4p3/4P3/1BPP1N2/PP3PPP/R1BQRNK1 w - - 0 11";
+
+
+	public int evaluate(ChessMatch match) {
+		ChessBoard board = match.getBoard();
+		int score = taper(board.getMiddlegameScore(), board.getEndgameScore(), board.getPhase());
+		return match.getCurrentPlayer() == Color.WHITE ? score : -score;
+	}
+
+
+	//mesma avaliação, recalculada percorrendo todas as peças (referência para conferir os termos incrementais)
+	public int evaluateFromScratch(ChessMatch match) {
+		ChessBoard board = match.getBoard();
+		int middlegame = 0;
+		int endgame = 0;
+		int phase = 0;
+		for (Color color : Color.values()) {
+			for (PieceType type : PieceType.values()) {
+				int index = ChessBoard.index(color, type);
+				long pieces = board.pieces(color, type);
+				while (pieces != 0) {
+					int square = Long.numberOfTrailingZeros(pieces);
+					middlegame += PieceSquareTables.middlegame(index, square);
+					endgame += PieceSquareTables.endgame(index, square);
+					phase += PieceSquareTables.PHASE_WEIGHTS[type.ordinal()];
+					pieces &= pieces - 1;
+				}
+			}
+		}
+		int score = taper(middlegame, endgame, phase);
+		return match.getCurrentPlayer() == Color.WHITE ? score : -score;
+	}
+
+
+	private static int taper(int middlegame, int endgame, int phase) {
+		phase = Math.min(phase, PieceSquareTables.MAX_PHASE);
+		return (middlegame * phase + endgame * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+	}
+
+
+	//uso: Evaluator [partidas]  joga partidas aleatórias, confere a avaliação incremental com a recalculada
+	//em cada posição (inclusive depois de desfazer os lances) e compara o tempo das duas
+	public static void main(String[] args) {
+		int games = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+		Evaluator evaluator = new Evaluator();
+		Random random = new Random(1);
+		MoveBuffer moves = new MoveBuffer();
+		int[] line = new int[200];
+		long positions = 0;
+		long mismatches = 0;
+
+		for (int g = 0; g < games; g++) {
+			ChessMatch match = new ChessMatch();
+			int plies = 0;
+			while (plies < line.length) {
+				if (evaluator.evaluate(match) != evaluator.evaluateFromScratch(match)) {
+					mismatches++;
+				}
+				positions++;
+				match.legalMoves(moves);
+				if (moves.size() == 0) {
+					break;
+				}
+				line[plies] = moves.get(random.nextInt(moves.size()));
+				match.doMove(line[plies++]);
+			}
+			while (plies > 0) {
+				match.undoMove(line[--plies]);
+				if (evaluator.evaluate(match) != evaluator.evaluateFromScratch(match)) {
+					mismatches++;
+				}
+			}
+		}
+		System.out.printf("%,d positions, %,d mismatches%n", positions, mismatches);
+
+		ChessMatch match = Fen.parse(SAMPLE);
+		for (int round = 0; round < 3; round++) {
+			long sum = 0;
+			long start = System.nanoTime();
+			for (int i = 0; i < 10_000_000; i++) {
+				sum += evaluator.evaluate(match);
+			}
+			long incremental = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int i = 0; i < 10_000_000; i++) {
+				sum += evaluator.evaluateFromScratch(match);
+			}
+			long scratch = System.nanoTime() - start;
+			System.out.printf("incremental %.1f ns, from scratch %.1f ns (%d)%n", incremental / 1e7, scratch / 1e7, sum);
+		}
+		if (mismatches != 0) {
+			System.exit(1);
+		}
+	}
+
+}
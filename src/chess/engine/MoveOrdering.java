@@ -0,0 +1,150 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+import chess.ChessBoard;
+import chess.ChessPiece;
+import chess.Color;
+import chess.Move;
+import chess.MoveBuffer;
+import chess.PieceType;
+
+//notas de ordenação dos movimentos para a busca alfa-beta, em arrays primitivos:
+//movimento da tabela primeiro, capturas por MVV-LVA (vítima mais valiosa, atacante menos valioso),
+//killers do ply, contra-lance do lance anterior, o histórico de cortes (from/to por cor) para o resto
+//e, por último, as capturas que perdem material pela SEE
+//cada Engine tem o seu; não é compartilhado entre threads
+public class MoveOrdering {
+
+	private static final int HASH_MOVE = 2_000_000;
+	private static final int CAPTURE = 1_000_000;
+	private static final int FIRST_KILLER = 900_000;
+	private static final int SECOND_KILLER = 899_000;
+	private static final int COUNTERMOVE = 898_000;
+	//capturas que perdem material (SEE negativa) vão para depois de todos os lances quietos
+	private static final int LOSING_CAPTURE = -2_000_000;
+	//o histórico fica abaixo das notas acima: quando alguma entrada passa do limite (para mais ou para menos),
+	//todas são divididas por 2
+	private static final int HISTORY_LIMIT = 400_000;
+
+	private int[][] killers = new int[Engine.MAX_PLY][2];
+	private int[][][] history = new int[2][64][64];
+	//contra-lance indexado pelo from/to do lance anterior
+	private int[][] countermoves = new int[64][64];
+
+	private StaticExchange exchange;
+
+
+	public MoveOrdering(StaticExchange exchange) {
+		this.exchange = exchange;
+	}
+
+
+	//dá nota a todos os movimentos da lista; a busca os tira em ordem com MoveBuffer.pickNext
+	public void score(MoveBuffer moves, ChessBoard board, Color mover, int ply, int hashMove, int previousMove) {
+		int[] killer = killers[ply];
+		int counter = (previousMove == Move.NONE) ? Move.NONE : countermoves[Move.from(previousMove)][Move.to(previousMove)];
+		int[][] butterfly = history[mover.ordinal()];
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.get(i);
+			int score;
+			if (move == hashMove) {
+				score = HASH_MOVE;
+			}
+			else if (Move.isCapture(move) || Move.isPromotion(move)) {
+				boolean losing = !Move.isPromotion(move) && !exchange.isAtLeast(board, move, 0);
+				score = (losing ? LOSING_CAPTURE : CAPTURE) + captureScore(board, move);
+			}
+			else if (move == killer[0]) {
+				score = FIRST_KILLER;
+			}
+			else if (move == killer[1]) {
+				score = SECOND_KILLER;
+			}
+			else if (move == counter) {
+				score = COUNTERMOVE;
+			}
+			else {
+				score = butterfly[Move.from(move)][Move.to(move)];
+			}
+			moves.setScore(i, score);
+		}
+	}
+
+
+	//MVV-LVA: o valor da vítima pesa mais que o do atacante; promoções somam o ganho da peça nova
+	private static int captureScore(ChessBoard board, int move) {
+		int score = 0;
+		if (Move.flags(move) == Move.EN_PASSANT) {
+			score = Evaluator.PIECE_VALUES[PieceType.PAWN.ordinal()] * 16;
+		}
+		else if (Move.isCapture(move)) {
+			ChessPiece victim = (ChessPiece) board.piece(Move.to(move));
+			score = Evaluator.PIECE_VALUES[victim.getType().ordinal()] * 16;
+		}
+		if (Move.isPromotion(move)) {
+			score += Evaluator.PIECE_VALUES[Move.promotionType(move).ordinal()] * 16;
+			return score - Evaluator.PIECE_VALUES[PieceType.PAWN.ordinal()];
+		}
+		ChessPiece attacker = (ChessPiece) board.piece(Move.from(move));
+		return score - Evaluator.PIECE_VALUES[attacker.getType().ordinal()] / 10;
+	}
+
+
+	//lance quieto que causou corte beta: vira killer, contra-lance e ganha histórico;
+	//os lances quietos tentados antes dele (tried[0..count-1]) perdem histórico
+	public void update(Color mover, int ply, int depth, int move, int previousMove, int[] tried, int count) {
+		if (killers[ply][0] != move) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = move;
+		}
+		if (previousMove != Move.NONE) {
+			countermoves[Move.from(previousMove)][Move.to(previousMove)] = move;
+		}
+		int[][] butterfly = history[mover.ordinal()];
+		int bonus = depth * depth;
+		boolean overflow = false;
+		for (int i = 0; i < count; i++) {
+			if ((butterfly[Move.from(tried[i])][Move.to(tried[i])] -= bonus) < -HISTORY_LIMIT) {
+				overflow = true;
+			}
+		}
+		if ((butterfly[Move.from(move)][Move.to(move)] += bonus) > HISTORY_LIMIT || overflow) {
+			age();
+		}
+	}
+
+
+	//entre buscas: killers são do ply da busca anterior, o histórico só perde peso
+	public void newSearch() {
+		for (int[] killer : killers) {
+			killer[0] = killer[1] = Move.NONE;
+		}
+		age();
+	}
+
+
+	public void clear() {
+		newSearch();
+		for (int[][] side : history) {
+			for (int[] from : side) {
+				Arrays.fill(from, 0);
+			}
+		}
+		for (int[] from : countermoves) {
+			Arrays.fill(from, Move.NONE);
+		}
+	}
+
+
+	private void age() {
+		for (int[][] side : history) {
+			for (int[] from : side) {
+				for (int to = 0; to < 64; to++) {
+					from[to] /= 2;
+				}
+			}
+		}
+	}
+
+}
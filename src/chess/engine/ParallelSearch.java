@@ -0,0 +1,121 @@
+package chess.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import chess.ChessMatch;
+import chess.tablebase.Tablebases;
+
+//busca paralela Lazy SMP: várias threads buscam a mesma posição, cada uma na sua cópia da partida,
+//e só se comunicam pela tabela de transposição compartilhada; o resultado é o da thread principal
+public class ParallelSearch {
+
+	private int threads;
+	private TranspositionTable table;
+	private Evaluator evaluator;
+	private Tablebases tablebases;
+	private Consumer<SearchResult> listener;
+
+
+	public ParallelSearch() {
+		this(Runtime.getRuntime().availableProcessors(), new TranspositionTable(64));
+	}
+
+
+	public ParallelSearch(int threads, TranspositionTable table) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Número de threads inválido: " + threads);
+		}
+		this.threads = threads;
+		this.table = table;
+		this.evaluator = new Evaluator();
+	}
+
+
+	public int getThreads() {
+		return threads;
+	}
+
+
+	//chamado ao final de cada iteração completa da thread principal
+	public void setListener(Consumer<SearchResult> listener) {
+		this.listener = listener;
+	}
+
+
+	//as tabelas de finais são mapeadas uma vez e consultadas por todas as threads
+	public void setTablebases(Tablebases tablebases) {
+		this.tablebases = tablebases;
+	}
+
+
+	public TranspositionTable getTable() {
+		return table;
+	}
+
+
+	//nós e nós por segundo do resultado somam todas as threads
+	public SearchResult search(ChessMatch match, SearchLimits limits) {
+		long start = System.currentTimeMillis();
+		table.newSearch();
+		//um token para todas as threads: cancelado ao fim da busca principal (ou de fora, pelo token dos limites)
+		CancellationToken token = (limits.getToken() != null) ? limits.getToken().child() : new CancellationToken();
+		SearchLimits mainLimits = limits.copy();
+		mainLimits.setToken(token);
+		List<Engine> helpers = new ArrayList<>();
+		List<Thread> workers = new ArrayList<>();
+		for (int i = 1; i < threads; i++) {
+			Engine helper = new Engine(evaluator, table);
+			helper.setHelper(i);
+			helper.setTablebases(tablebases);
+			ChessMatch copy = match.copy();
+			//auxiliares ignoram os limites de nós e de tempo; param quando a principal termina
+			SearchLimits helperLimits = SearchLimits.depth(limits.getDepth());
+			helperLimits.setToken(token);
+			Thread worker = new Thread(() -> helper.search(copy, helperLimits), "search-helper-" + i);
+			worker.setDaemon(true);
+			helpers.add(helper);
+			workers.add(worker);
+			worker.start();
+		}
+
+		Engine main = new Engine(evaluator, table);
+		main.setHelper(0);
+		main.setTablebases(tablebases);
+		main.setListener(listener);
+		SearchResult result = main.search(match, mainLimits);
+		token.cancel();
+
+		long nodes = main.getNodes();
+		for (int i = 0; i < workers.size(); i++) {
+			Engine helper = helpers.get(i);
+			Thread worker = workers.get(i);
+			try {
+				//repete o pedido de parada caso a thread ainda não tenha começado a buscar
+				while (worker.isAlive()) {
+					helper.stop();
+					worker.join(10);
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			nodes += helper.getNodes();
+		}
+		long millis = System.currentTimeMillis() - start;
+		return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodes, millis, result.getPrincipalVariation());
+	}
+
+
+	//uso: ParallelSearch [profundidade] [threads]
+	public static void main(String[] args) {
+		int depth = (args.length > 0) ? Integer.parseInt(args[0]) : 7;
+		int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		ParallelSearch search = new ParallelSearch(threads, new TranspositionTable(64));
+		SearchResult result = search.search(new ChessMatch(), SearchLimits.depth(depth));
+		System.out.println(threads + " threads: " + result);
+		System.out.println("hash: " + search.getTable());
+	}
+
+}
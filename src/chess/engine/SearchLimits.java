@@ -0,0 +1,132 @@
+package chess.engine;
+
+//limites de uma busca: profundidade máxima, número máximo de nós e tempo
+//tempo em milissegundos: fixo por lance (moveTime) ou pelo relógio de quem joga (time, increment, movesToGo);
+//o token permite cancelar a busca de fora e pode trazer um prazo rígido
+public class SearchLimits {
+
+	private int depth = Engine.MAX_PLY - 1;
+	private long nodes = Long.MAX_VALUE;
+	private long moveTime;
+	private long time;
+	private long increment;
+	private int movesToGo;
+	private CancellationToken token;
+
+
+	public static SearchLimits depth(int depth) {
+		SearchLimits limits = new SearchLimits();
+		limits.setDepth(depth);
+		return limits;
+	}
+
+
+	public static SearchLimits nodes(long nodes) {
+		SearchLimits limits = new SearchLimits();
+		limits.setNodes(nodes);
+		return limits;
+	}
+
+
+	public static SearchLimits moveTime(long millis) {
+		SearchLimits limits = new SearchLimits();
+		limits.setMoveTime(millis);
+		return limits;
+	}
+
+
+	public static SearchLimits clock(long time, long increment) {
+		SearchLimits limits = new SearchLimits();
+		limits.setTime(time);
+		limits.setIncrement(increment);
+		return limits;
+	}
+
+
+	public SearchLimits copy() {
+		SearchLimits limits = new SearchLimits();
+		limits.depth = depth;
+		limits.nodes = nodes;
+		limits.moveTime = moveTime;
+		limits.time = time;
+		limits.increment = increment;
+		limits.movesToGo = movesToGo;
+		limits.token = token;
+		return limits;
+	}
+
+
+	public int getDepth() {
+		return depth;
+	}
+
+
+	public void setDepth(int depth) {
+		if (depth < 1 || depth >= Engine.MAX_PLY) {
+			throw new IllegalArgumentException("Profundidade inválida: " + depth);
+		}
+		this.depth = depth;
+	}
+
+
+	public long getNodes() {
+		return nodes;
+	}
+
+
+	public void setNodes(long nodes) {
+		this.nodes = nodes;
+	}
+
+
+
+	public long getMoveTime() {
+		return moveTime;
+	}
+
+
+	public void setMoveTime(long moveTime) {
+		this.moveTime = moveTime;
+	}
+
+
+	public long getTime() {
+		return time;
+	}
+
+
+	public void setTime(long time) {
+		this.time = time;
+	}
+
+
+	public long getIncrement() {
+		return increment;
+	}
+
+
+	public void setIncrement(long increment) {
+		this.increment = increment;
+	}
+
+
+	public int getMovesToGo() {
+		return movesToGo;
+	}
+
+
+	public void setMovesToGo(int movesToGo) {
+		this.movesToGo = movesToGo;
+	}
+
+
+	public CancellationToken getToken() {
+		return token;
+	}
+
+
+	public void setToken(CancellationToken token) {
+		this.token = token;
+	}
+
+}
@@ -0,0 +1,87 @@
+package chess.engine;
+
+import chess.Move;
+
+//resultado de uma iteração completa da busca
+public class SearchResult {
+
+	private int bestMove;
+	private int score;
+	private int depth;
+	private long nodes;
+	private long millis;
+	private int[] principalVariation;
+
+
+	public SearchResult(int bestMove, int score, int depth, long nodes, long millis, int[] principalVariation) {
+		this.bestMove = bestMove;
+		this.score = score;
+		this.depth = depth;
+		this.nodes = nodes;
+		this.millis = millis;
+		this.principalVariation = principalVariation;
+	}
+
+
+	//movimento codificado (ver Move), ou Move.NONE se não houver movimento legal
+	public int getBestMove() {
+		return bestMove;
+	}
+
+
+	//em centipeões, do ponto de vista do jogador da vez
+	public int getScore() {
+		return score;
+	}
+
+
+	public int getDepth() {
+		return depth;
+	}
+
+
+	public long getNodes() {
+		return nodes;
+	}
+
+
+	public long getMillis() {
+		return millis;
+	}
+
+
+	public long getNodesPerSecond() {
+		return nodes * 1000 / Math.max(1, millis);
+	}
+
+
+	public int[] getPrincipalVariation() {
+		return principalVariation.clone();
+	}
+
+
+	public boolean isMate() {
+		return Math.abs(score) >= Engine.MATE - Engine.MAX_PLY;
+	}
+
+
+	//lances até o mate (positivo: o jogador da vez dá mate)
+	public int getMateIn() {
+		return score > 0 ? (Engine.MATE - score + 1) / 2 : -(Engine.MATE + score) / 2;
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("depth ").append(depth);
+		sb.append(isMate() ? " mate " + getMateIn() : " cp " + score);
+		sb.append(" nodes ").append(nodes).append(" nps ").append(getNodesPerSecond()).append(" time ").append(millis);
+		sb.append(" pv");
+		for (int move : principalVariation) {
+			sb.append(' ').append(Move.toString(move));
+		}
+		return sb.toString();
+	}
+
+}
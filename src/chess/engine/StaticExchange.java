@@ -0,0 +1,114 @@
+package chess.engine;
+
+import chess.Attacks;
+import chess.ChessBoard;
+import chess.ChessPiece;
+import chess.Color;
+import chess.Move;
+import chess.PieceType;
+
+//avaliação estática de trocas (SEE): saldo de material da sequência de capturas numa casa,
+//calculado só com os bitboards de ataque, sem jogar os lances. Cada lado captura com a peça
+//menos valiosa e pode parar quando continuar não compensa; peças que atacam por trás de outra
+//(raios x de torre, bispo e dama) entram quando a da frente sai. Cravadas não são consideradas.
+//cada Engine tem a sua instância (a lista de ganhos é reaproveitada entre as chamadas); não é compartilhada entre threads
+public final class StaticExchange {
+
+	private static final PieceType[] PIECE_ORDER = { PieceType.PAWN, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN, PieceType.KING };
+
+	//ganho acumulado a cada captura da sequência
+	private final int[] gain = new int[32];
+
+
+	//ganho de material, em centipeões, para quem joga o movimento
+	public int evaluate(ChessBoard board, int move) {
+		if (Move.isCastle(move)) {
+			return 0;
+		}
+		int from = Move.from(move);
+		int to = Move.to(move);
+		ChessPiece mover = (ChessPiece) board.piece(from);
+		Color side = mover.getColor();
+		long occupied = board.occupied();
+
+		int[] gain = this.gain;
+		gain[0] = 0;
+		int attackerValue = value(mover.getType());
+		if (Move.flags(move) == Move.EN_PASSANT) {
+			gain[0] = value(PieceType.PAWN);
+			occupied ^= 1L << (side == Color.WHITE ? to + 8 : to - 8);
+		}
+		else if (Move.isCapture(move)) {
+			gain[0] = value(((ChessPiece) board.piece(to)).getType());
+		}
+		if (Move.isPromotion(move)) {
+			attackerValue = value(Move.promotionType(move));
+			gain[0] += attackerValue - value(PieceType.PAWN);
+		}
+
+		long fromBit = 1L << from;
+		long attackers = board.attackersTo(to, Color.WHITE, occupied) | board.attackersTo(to, Color.BLACK, occupied);
+		long diagonal = board.pieces(Color.WHITE, PieceType.BISHOP) | board.pieces(Color.BLACK, PieceType.BISHOP)
+				| board.pieces(Color.WHITE, PieceType.QUEEN) | board.pieces(Color.BLACK, PieceType.QUEEN);
+		long orthogonal = board.pieces(Color.WHITE, PieceType.ROOK) | board.pieces(Color.BLACK, PieceType.ROOK)
+				| board.pieces(Color.WHITE, PieceType.QUEEN) | board.pieces(Color.BLACK, PieceType.QUEEN);
+
+		int d = 0;
+		while (true) {
+			d++;
+			side = opposite(side);
+			//se o adversário recapturar a peça que acabou de chegar na casa
+			gain[d] = attackerValue - gain[d - 1];
+			if (Math.max(-gain[d - 1], gain[d]) < 0 || d == gain.length - 1) {
+				break;
+			}
+			occupied ^= fromBit;
+			attackers |= (Attacks.bishop(to, occupied) & diagonal) | (Attacks.rook(to, occupied) & orthogonal);
+			attackers &= occupied;
+
+			long own = attackers & board.pieces(side);
+			if (own == 0) {
+				break;
+			}
+			PieceType type = leastValuable(board, side, own);
+			fromBit = Long.lowestOneBit(own & board.pieces(side, type));
+			//o rei só captura se a casa não estiver mais defendida
+			if (type == PieceType.KING && (attackers & board.pieces(opposite(side))) != 0) {
+				break;
+			}
+			attackerValue = value(type);
+		}
+		//a última entrada é especulativa: minimax de trás para frente a partir da anterior
+		while (--d > 0) {
+			gain[d - 1] = -Math.max(-gain[d - 1], gain[d]);
+		}
+		return gain[0];
+	}
+
+
+	//se o movimento ganha pelo menos threshold (com 0: não perde material)
+	public boolean isAtLeast(ChessBoard board, int move, int threshold) {
+		return evaluate(board, move) >= threshold;
+	}
+
+
+	private static PieceType leastValuable(ChessBoard board, Color side, long candidates) {
+		for (PieceType type : PIECE_ORDER) {
+			if ((candidates & board.pieces(side, type)) != 0) {
+				return type;
+			}
+		}
+		return PieceType.KING;
+	}
+
+
+	private static int value(PieceType type) {
+		return (type == PieceType.KING) ? 20000 : Evaluator.PIECE_VALUES[type.ordinal()];
+	}
+
+
+	private static Color opposite(Color color) {
+		return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+	}
+
+}
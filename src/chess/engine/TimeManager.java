@@ -0,0 +1,60 @@
+package chess.engine;
+
+//divide o tempo de relógio entre os lances: um tempo ideal (soft), depois do qual não vale começar
+//outra iteração, e um limite rígido (hard), em que a busca é interrompida no meio
+//(o prazo do token dos limites é conferido pela própria busca, junto com o cancelamento)
+public final class TimeManager {
+
+	//margem para a comunicação e o relógio não passarem do tempo restante
+	public static final long MOVE_OVERHEAD = 10;
+	//lances restantes assumidos quando o controle de tempo não informa
+	public static final int DEFAULT_MOVES_TO_GO = 30;
+
+	private long start;
+	private long soft = Long.MAX_VALUE;
+	private long deadline = CancellationToken.NO_DEADLINE;
+
+
+	public TimeManager(SearchLimits limits, long start) {
+		this.start = start;
+		long hard = Long.MAX_VALUE;
+		if (limits.getMoveTime() > 0) {
+			//tempo fixo: usa todo o tempo, sem parar entre iterações
+			hard = limits.getMoveTime();
+		}
+		else if (limits.getTime() > 0) {
+			int movesToGo = (limits.getMovesToGo() > 0) ? Math.min(limits.getMovesToGo(), 50) : DEFAULT_MOVES_TO_GO;
+			long available = Math.max(1, limits.getTime() - MOVE_OVERHEAD);
+			soft = Math.min(available, available / movesToGo + limits.getIncrement() * 3 / 4);
+			hard = Math.min(available, soft * 4);
+		}
+		if (hard != Long.MAX_VALUE) {
+			deadline = start + hard * 1_000_000L;
+		}
+	}
+
+
+	//instante (System.nanoTime) em que a busca para, ou CancellationToken.NO_DEADLINE
+	public long getDeadline() {
+		return deadline;
+	}
+
+
+	//instante em que se esgota o tempo ideal, ou CancellationToken.NO_DEADLINE
+	public long getSoftDeadline() {
+		return (soft == Long.MAX_VALUE) ? CancellationToken.NO_DEADLINE : start + soft * 1_000_000L;
+	}
+
+
+	//depois de uma iteração completa: a próxima leva algumas vezes mais, então só começa antes de metade do tempo ideal
+	public boolean shouldStop(long now) {
+		return soft != Long.MAX_VALUE && (now - start) / 1_000_000L >= soft / 2;
+	}
+
+
+	//instante a partir do qual shouldStop é verdadeiro, ou CancellationToken.NO_DEADLINE (tempo fixo não tem)
+	public long getIterationDeadline() {
+		return (soft == Long.MAX_VALUE) ? CancellationToken.NO_DEADLINE : start + soft / 2 * 1_000_000L;
+	}
+
+}
@@ -0,0 +1,201 @@
+package chess.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+//tabela de transposição de tamanho fixo (em MB), compartilhada entre as threads da busca, sem travas
+//um único long[] pré-alocado dividido em buckets de 4 entradas (64 bytes, uma linha de cache);
+//cada entrada são dois longs (chave ^ dados, dados), e uma leitura só é aceita se o XOR dos dois
+//devolver o hash procurado, o que descarta entradas escritas pela metade por outra thread
+public class TranspositionTable {
+
+	public static final int EXACT = 0;
+	public static final int LOWER = 1;
+	public static final int UPPER = 2;
+
+	private static final int BUCKET_ENTRIES = 4;
+	private static final int BUCKET_LONGS = BUCKET_ENTRIES * 2;
+
+	//bit que marca uma entrada preenchida (dados 0 = entrada vazia)
+	private static final long VALID = 1L << 63;
+
+	private long[] table;
+	private int bucketMask;
+	private int megabytes;
+
+	//geração da busca atual: entradas de buscas anteriores são substituídas primeiro
+	private volatile int generation;
+
+	private LongAdder probes = new LongAdder();
+	private LongAdder hits = new LongAdder();
+	private LongAdder stores = new LongAdder();
+
+
+	public TranspositionTable(int megabytes) {
+		if (megabytes < 1) {
+			throw new IllegalArgumentException("Tamanho inválido da tabela: " + megabytes + " MB");
+		}
+		//número de buckets potência de 2, sem passar do orçamento de memória
+		long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / (BUCKET_LONGS * 8));
+		buckets = Math.max(1L, Math.min(buckets, 1L << 27));
+		table = new long[(int) buckets * BUCKET_LONGS];
+		bucketMask = (int) buckets - 1;
+		this.megabytes = megabytes;
+	}
+
+
+	//dados da entrada do hash informado, ou 0 se não houver
+	public long probe(long hash) {
+		probes.increment();
+		int base = bucket(hash);
+		for (int i = base; i < base + BUCKET_LONGS; i += 2) {
+			long d = table[i + 1];
+			if (d != 0 && (table[i] ^ d) == hash) {
+				hits.increment();
+				return d;
+			}
+		}
+		return 0L;
+	}
+
+
+	public void store(long hash, int move, int score, int depth, int bound) {
+		stores.increment();
+		int base = bucket(hash);
+		int gen = generation;
+		int replace = base;
+		int worst = Integer.MAX_VALUE;
+		for (int i = base; i < base + BUCKET_LONGS; i += 2) {
+			long d = table[i + 1];
+			if (d == 0) {
+				replace = i;
+				break;
+			}
+			if ((table[i] ^ d) == hash) {
+				//mesma posição: mantém a entrada mais profunda, exceto se a nova for exata
+				if (depth(d) > depth && bound != EXACT) {
+					return;
+				}
+				//sem movimento novo, preserva o antigo para a ordenação
+				if (move == 0) {
+					move = move(d);
+				}
+				replace = i;
+				break;
+			}
+			//profundidade preferida, descontando 8 por geração de idade
+			int value = depth(d) - 8 * ((gen - generation(d)) & 0xFF);
+			if (value < worst) {
+				worst = value;
+				replace = i;
+			}
+		}
+		long d = VALID | ((long) bound << 56) | ((long) (depth & 0xFF) << 48) | ((long) (score & 0xFFFF) << 32)
+				| ((long) (gen & 0xFF) << 24) | (move & 0xFFFFFFL);
+		table[replace + 1] = d;
+		table[replace] = hash ^ d;
+	}
+
+
+	//chamado no início de cada busca nova
+	public void newSearch() {
+		generation = (generation + 1) & 0xFF;
+	}
+
+
+	public void clear() {
+		Arrays.fill(table, 0L);
+		generation = 0;
+		resetStatistics();
+	}
+
+
+	public int getMegabytes() {
+		return megabytes;
+	}
+
+
+	public long getEntries() {
+		return (long) table.length / 2;
+	}
+
+
+	public long getProbes() {
+		return probes.sum();
+	}
+
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+
+	public long getStores() {
+		return stores.sum();
+	}
+
+
+	public double getHitRate() {
+		long p = probes.sum();
+		return (p == 0) ? 0.0 : (double) hits.sum() / p;
+	}
+
+
+	//ocupação em milésimos pelas entradas da geração atual, amostrando as primeiras 1000 entradas
+	public int getFill() {
+		int sample = (int) Math.min(1000, getEntries());
+		int used = 0;
+		int gen = generation;
+		for (int i = 0; i < sample; i++) {
+			long d = table[i * 2 + 1];
+			if (d != 0 && generation(d) == gen) {
+				used++;
+			}
+		}
+		return used * 1000 / sample;
+	}
+
+
+	public void resetStatistics() {
+		probes.reset();
+		hits.reset();
+		stores.reset();
+	}
+
+
+	@Override
+	public String toString() {
+		return String.format("%d MB, %d entries, hit rate %.1f%%, fill %d/1000", megabytes, getEntries(), getHitRate() * 100, getFill());
+	}
+
+
+	private int bucket(long hash) {
+		return ((int) (hash ^ (hash >>> 32)) & bucketMask) * BUCKET_LONGS;
+	}
+
+
+	public static int move(long entry) {
+		return (int) entry & 0xFFFFFF;
+	}
+
+
+	public static int score(long entry) {
+		return (short) (entry >>> 32);
+	}
+
+
+	public static int depth(long entry) {
+		return (int) (entry >>> 48) & 0xFF;
+	}
+
+
+	public static int bound(long entry) {
+		return (int) (entry >>> 56) & 0x3;
+	}
+
+
+	private static int generation(long entry) {
+		return (int) (entry >>> 24) & 0xFF;
+	}
+
+}
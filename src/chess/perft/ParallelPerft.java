@@ -0,0 +1,130 @@
+package chess.perft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import chess.ChessMatch;
+import chess.MoveBuffer;
+
+//perft paralelo: os primeiros níveis da árvore viram tarefas do ForkJoinPool,
+//cada uma com a sua cópia da partida, e abaixo deles cada tarefa conta sozinha com Perft
+public class ParallelPerft {
+
+	private ForkJoinPool pool;
+	private int splitDepth = 1;
+	private PerftCache cache;
+
+
+	public ParallelPerft() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+
+	public ParallelPerft(int parallelism) {
+		pool = new ForkJoinPool(parallelism);
+	}
+
+
+	//quantos níveis a partir da raiz são divididos em tarefas (1 = só a raiz)
+	public void setSplitDepth(int splitDepth) {
+		if (splitDepth < 1) {
+			throw new IllegalArgumentException("Profundidade de divisão inválida: " + splitDepth);
+		}
+		this.splitDepth = splitDepth;
+	}
+
+
+	//cache compartilhado pelas tarefas, ou null para contar sem cache
+	public void setCache(PerftCache cache) {
+		this.cache = cache;
+	}
+
+
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+
+	//a partida informada não é alterada: as tarefas trabalham em cópias
+	public long perft(ChessMatch match, int depth) {
+		return pool.invoke(new PerftTask(match.copy(), depth, splitDepth));
+	}
+
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+
+	private class PerftTask extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		private ChessMatch match;
+		private int depth;
+		private int split;
+
+		PerftTask(ChessMatch match, int depth, int split) {
+			this.match = match;
+			this.depth = depth;
+			this.split = split;
+		}
+
+		@Override
+		protected Long compute() {
+			if (split == 0 || depth <= 1) {
+				Perft perft = new Perft(match);
+				perft.setCache(cache);
+				return perft.perft(depth, true);
+			}
+			MoveBuffer moves = match.legalMoves();
+			List<PerftTask> tasks = new ArrayList<>();
+			for (int i = 0; i < moves.size(); i++) {
+				ChessMatch child = match.copy();
+				child.doMove(moves.get(i));
+				tasks.add(new PerftTask(child, depth - 1, split - 1));
+			}
+			long nodes = 0;
+			for (PerftTask task : invokeAll(tasks)) {
+				nodes += task.join();
+			}
+			return nodes;
+		}
+	}
+
+
+	//uso: ParallelPerft [profundidade máxima] [threads] [--cache MB] [--split N]
+	//roda a suíte padrão e compara com as contagens conhecidas
+	public static void main(String[] args) {
+		int maxDepth = (args.length > 0) ? Integer.parseInt(args[0]) : 6;
+		int threads = (args.length > 1 && !args[1].startsWith("--")) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		ParallelPerft perft = new ParallelPerft(threads);
+		for (int i = 0; i < args.length - 1; i++) {
+			if (args[i].equals("--cache")) perft.setCache(new PerftCache(Integer.parseInt(args[i + 1])));
+			if (args[i].equals("--split")) perft.setSplitDepth(Integer.parseInt(args[i + 1]));
+		}
+
+		boolean ok = true;
+		System.out.println(perft.getParallelism() + " threads");
+		for (Perft.Case c : Perft.standardSuite()) {
+			System.out.println(c.name);
+			for (int depth = 1; depth <= Math.min(maxDepth, c.expected.length); depth++) {
+				long start = System.nanoTime();
+				long nodes = perft.perft(c.position.get(), depth);
+				long nanos = System.nanoTime() - start;
+				boolean pass = nodes == c.expected[depth - 1];
+				ok &= pass;
+				System.out.printf("  depth %d: %,d nodes  %.3f s  %,.0f nodes/s  %s%n", depth, nodes, nanos / 1e9,
+						nodes * 1e9 / Math.max(nanos, 1), pass ? "OK" : "FAIL (expected " + c.expected[depth - 1] + ")");
+			}
+		}
+		perft.shutdown();
+		System.out.println(ok ? "All counts match" : "Count mismatch");
+		if (!ok) {
+			System.exit(1);
+		}
+	}
+
+}
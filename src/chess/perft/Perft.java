@@ -0,0 +1,253 @@
+package chess.perft;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import chess.ChessMatch;
+import chess.Fen;
+import chess.Move;
+import chess.MoveBuffer;
+
+//perft: conta as folhas da árvore de movimentos legais até uma profundidade fixa
+//serve como oráculo de correção (contagens conhecidas) e como benchmark de geração de movimentos
+public class Perft {
+
+	private ChessMatch match;
+	private MoveBuffer[] buffers;
+	private PerftCache cache;
+
+	//contadores do modo detalhado (apenas nas folhas)
+	private long captures;
+	private long enPassants;
+	private long castles;
+	private long promotions;
+	private long checks;
+	private long checkMates;
+
+
+	public Perft(ChessMatch match) {
+		this.match = match;
+		buffers = new MoveBuffer[64];
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = new MoveBuffer();
+		}
+	}
+
+
+	//cache opcional das contagens de subárvores (posições repetidas por transposição)
+	public void setCache(PerftCache cache) {
+		this.cache = cache;
+	}
+
+
+	//bulk: no último nível conta os movimentos legais sem jogá-los
+	public long perft(int depth, boolean bulk) {
+		if (depth == 0) {
+			return 1;
+		}
+		long hash = 0;
+		if (cache != null && depth > 1) {
+			hash = match.getPositionHash();
+			long cached = cache.get(hash, depth);
+			if (cached >= 0) {
+				return cached;
+			}
+		}
+		MoveBuffer moves = buffers[depth];
+		match.legalMoves(moves);
+		if (depth == 1 && bulk) {
+			return moves.size();
+		}
+		long nodes = 0;
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.get(i);
+			match.doMove(move);
+			nodes += perft(depth - 1, bulk);
+			match.undoMove(move);
+		}
+		if (cache != null && depth > 1) {
+			cache.put(hash, depth, nodes);
+		}
+		return nodes;
+	}
+
+
+	public long perft(int depth) {
+		return perft(depth, true);
+	}
+
+
+	//como perft(depth, false), mas classifica cada folha (capturas, en passant, roques, promoções, checks)
+	public long detailed(int depth) {
+		captures = enPassants = castles = promotions = checks = checkMates = 0;
+		return detailedPerft(depth);
+	}
+
+
+	private long detailedPerft(int depth) {
+		if (depth == 0) {
+			return 1;
+		}
+		MoveBuffer moves = buffers[depth];
+		match.legalMoves(moves);
+		long nodes = 0;
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.get(i);
+			match.doMove(move);
+			if (depth == 1) {
+				nodes++;
+				countLeaf(move);
+			}
+			else {
+				nodes += detailedPerft(depth - 1);
+			}
+			match.undoMove(move);
+		}
+		return nodes;
+	}
+
+
+	private void countLeaf(int move) {
+		if (Move.isCapture(move)) captures++;
+		if (Move.flags(move) == Move.EN_PASSANT) enPassants++;
+		if (Move.isCastle(move)) castles++;
+		if (Move.isPromotion(move)) promotions++;
+		if (match.isInCheck()) {
+			checks++;
+			match.legalMoves(buffers[0]);
+			if (buffers[0].size() == 0) {
+				checkMates++;
+			}
+		}
+	}
+
+
+	//perft dividido: número de folhas abaixo de cada movimento da raiz
+	public long divide(int depth, PrintStream out) {
+		MoveBuffer moves = new MoveBuffer();
+		match.legalMoves(moves);
+		long total = 0;
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.get(i);
+			match.doMove(move);
+			long nodes = perft(depth - 1, true);
+			match.undoMove(move);
+			out.println(Move.toString(move) + ": " + nodes);
+			total += nodes;
+		}
+		out.println();
+		out.println("Moves: " + moves.size());
+		out.println("Nodes: " + total);
+		return total;
+	}
+
+
+	public long getCaptures() {
+		return captures;
+	}
+
+
+	public long getEnPassants() {
+		return enPassants;
+	}
+
+
+	public long getCastles() {
+		return castles;
+	}
+
+
+	public long getPromotions() {
+		return promotions;
+	}
+
+
+	public long getChecks() {
+		return checks;
+	}
+
+
+	public long getCheckMates() {
+		return checkMates;
+	}
+
+
+	//posições padrão com as contagens conhecidas por profundidade (índice 0 = profundidade 1)
+	static class Case {
+
+		String name;
+		Supplier<ChessMatch> position;
+		long[] expected;
+
+		Case(String name, Supplier<ChessMatch> position, long... expected) {
+			this.name = name;
+			this.position = position;
+			this.expected = expected;
+		}
+	}
+
+
+	static List<Case> standardSuite() {
+		List<Case> suite = new ArrayList<>();
+		suite.add(new Case("Initial position", ChessMatch::new, 20L, 400L, 8902L, 197281L, 4865609L, 119060324L));
+		suite.add(new Case("Kiwipete", () -> Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"),
+				48L, 2039L, 97862L, 4085603L, 193690690L));
+		suite.add(new Case("Position 3", () -> Fen.parse("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"),
+				14L, 191L, 2812L, 43238L, 674624L, 11030083L));
+		suite.add(new Case("Position 4", () -> Fen.parse("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1"),
+				6L, 264L, 9467L, 422333L, 15833292L));
+		suite.add(new Case("Position 5", () -> Fen.parse("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"),
+				44L, 1486L, 62379L, 2103487L, 89941194L));
+		return suite;
+	}
+
+
+	//uso: Perft [profundidade máxima] [--full]  roda a suíte padrão
+	//     Perft divide <profundidade>            perft dividido da posição inicial
+	//     Perft detailed <profundidade>          folhas classificadas por tipo de movimento
+	public static void main(String[] args) {
+		if (args.length >= 2 && args[0].equals("divide")) {
+			new Perft(new ChessMatch()).divide(Integer.parseInt(args[1]), System.out);
+			return;
+		}
+		if (args.length >= 2 && args[0].equals("detailed")) {
+			Perft perft = new Perft(new ChessMatch());
+			long nodes = perft.detailed(Integer.parseInt(args[1]));
+			System.out.printf("Nodes: %d%nCaptures: %d%nEn passant: %d%nCastles: %d%nPromotions: %d%nChecks: %d%nCheckmates: %d%n",
+					nodes, perft.getCaptures(), perft.getEnPassants(), perft.getCastles(), perft.getPromotions(), perft.getChecks(), perft.getCheckMates());
+			return;
+		}
+
+		int maxDepth = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+		boolean bulk = !(args.length > 1 && args[1].equals("--full"));
+		boolean ok = true;
+		long totalNodes = 0;
+		long totalNanos = 0;
+
+		for (Case c : standardSuite()) {
+			System.out.println(c.name);
+			for (int depth = 1; depth <= Math.min(maxDepth, c.expected.length); depth++) {
+				Perft perft = new Perft(c.position.get());
+				long start = System.nanoTime();
+				long nodes = perft.perft(depth, bulk);
+				long nanos = System.nanoTime() - start;
+				totalNodes += nodes;
+				totalNanos += nanos;
+
+				boolean pass = nodes == c.expected[depth - 1];
+				ok &= pass;
+				System.out.printf("  depth %d: %,d nodes  %.3f s  %,.0f nodes/s  %s%n", depth, nodes, nanos / 1e9,
+						nodes * 1e9 / Math.max(nanos, 1), pass ? "OK" : "FAIL (expected " + c.expected[depth - 1] + ")");
+			}
+		}
+		System.out.println();
+		System.out.printf("Total: %,d nodes in %.3f s (%,.0f nodes/s)%n", totalNodes, totalNanos / 1e9, totalNodes * 1e9 / Math.max(totalNanos, 1));
+		System.out.println(ok ? "All counts match" : "Count mismatch");
+		if (!ok) {
+			System.exit(1);
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+package chess.perft;
+
+//cache de contagens de subárvores do perft, indexado pelo hash da posição e pela profundidade
+//compartilhado entre threads sem travas: cada entrada são dois longs (chave ^ dados, dados)
+//e uma leitura só é aceita se o XOR devolver o hash procurado
+public class PerftCache {
+
+	private long[] table;
+	private int mask;
+
+
+	public PerftCache(int megabytes) {
+		if (megabytes < 1) {
+			throw new IllegalArgumentException("Tamanho inválido do cache: " + megabytes + " MB");
+		}
+		long entries = Long.highestOneBit((long) megabytes * 1024 * 1024 / 16);
+		entries = Math.max(1L, Math.min(entries, 1L << 29));
+		table = new long[(int) entries * 2];
+		mask = (int) entries - 1;
+	}
+
+
+	//número de folhas guardado para a posição e profundidade, ou -1
+	public long get(long hash, int depth) {
+		int index = index(hash, depth);
+		long data = table[index + 1];
+		if (data != 0 && (table[index] ^ data) == hash && (data & 0xFF) == depth) {
+			return data >>> 8;
+		}
+		return -1;
+	}
+
+
+	public void put(long hash, int depth, long nodes) {
+		int index = index(hash, depth);
+		long data = (nodes << 8) | depth;
+		table[index + 1] = data;
+		table[index] = hash ^ data;
+	}
+
+
+	private int index(long hash, int depth) {
+		long h = hash ^ (depth * 0x9E3779B97F4A7C15L);
+		return ((int) (h ^ (h >>> 32)) & mask) * 2;
+	}
+
+}
@@ -0,0 +1,116 @@
+package chess.pgn;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import chess.ChessMatch;
+import chess.ChessSnapshot;
+import chess.Fen;
+
+//uma partida em PGN: etiquetas, movimentos (codificados, ver Move) e resultado
+public class PgnGame {
+
+	public static final String WHITE_WINS = "1-0";
+	public static final String BLACK_WINS = "0-1";
+	public static final String DRAW = "1/2-1/2";
+	public static final String UNKNOWN = "*";
+
+	private Map<String, String> tags = new LinkedHashMap<>();
+	private int[] moves = new int[128];
+	private int moveCount;
+	private String result = UNKNOWN;
+
+	//mensagem do primeiro movimento que não pôde ser lido (os seguintes são ignorados), ou null
+	private String error;
+
+
+	public PgnGame() {
+	}
+
+
+	//partida a partir de um ChessMatch: posição de início e movimentos jogados
+	public static PgnGame of(ChessMatch match) {
+		PgnGame game = new PgnGame();
+		ChessSnapshot initial = match.getInitialPosition();
+		if (initial != null) {
+			game.setTag("SetUp", "1");
+			game.setTag("FEN", Fen.write(initial));
+		}
+		for (int move : match.getMoves()) {
+			game.addMove(move);
+		}
+		return game;
+	}
+
+
+	public Map<String, String> getTags() {
+		return tags;
+	}
+
+
+	public String getTag(String name) {
+		return tags.get(name);
+	}
+
+
+	public void setTag(String name, String value) {
+		tags.put(name, value);
+	}
+
+
+	public void addMove(int move) {
+		if (moveCount == moves.length) {
+			moves = Arrays.copyOf(moves, moveCount * 2);
+		}
+		moves[moveCount++] = move;
+	}
+
+
+	public int getMove(int index) {
+		return moves[index];
+	}
+
+
+	public int getMoveCount() {
+		return moveCount;
+	}
+
+
+	public String getResult() {
+		return result;
+	}
+
+
+	public void setResult(String result) {
+		this.result = result;
+	}
+
+
+	public String getError() {
+		return error;
+	}
+
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+
+	//partida na posição de início (etiqueta FEN, se houver)
+	public ChessMatch startPosition() {
+		String fen = tags.get("FEN");
+		return (fen != null) ? Fen.parse(fen) : new ChessMatch();
+	}
+
+
+	//partida com todos os movimentos jogados
+	public ChessMatch toMatch() {
+		ChessMatch match = startPosition();
+		for (int i = 0; i < moveCount; i++) {
+			match.doMove(moves[i]);
+		}
+		return match;
+	}
+
+}
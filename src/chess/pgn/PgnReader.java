@@ -0,0 +1,282 @@
+package chess.pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import boardgame.BoardException;
+import chess.ChessMatch;
+import chess.MoveBuffer;
+
+//leitor de PGN em fluxo: lê o canal em blocos de tamanho fixo e devolve uma partida por vez,
+//decodificando cada lance SAN contra os movimentos legais assim que é lido
+//(a memória usada não depende do tamanho do arquivo, só do tamanho de cada partida)
+public class PgnReader implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private ReadableByteChannel channel;
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private boolean endOfInput;
+	private int pushedBack = -1;
+
+	//texto do token atual (lance ou etiqueta)
+	private byte[] token = new byte[256];
+	private int tokenLength;
+
+	private MoveBuffer legal = new MoveBuffer();
+	private long gamesRead;
+
+
+	public PgnReader(ReadableByteChannel channel) {
+		this.channel = channel;
+		buffer.flip();
+	}
+
+
+	public static PgnReader open(Path path) throws IOException {
+		return new PgnReader(FileChannel.open(path, StandardOpenOption.READ));
+	}
+
+
+	public long getGamesRead() {
+		return gamesRead;
+	}
+
+
+	//próxima partida, ou null no fim do arquivo
+	public PgnGame next() throws IOException {
+		PgnGame game = null;
+		ChessMatch match = null;
+		boolean inMoves = false;
+		int c;
+		while ((c = skipSpaces()) >= 0) {
+			if (c == '[') {
+				if (inMoves) {
+					//partida sem resultado no final: a etiqueta já é da próxima
+					pushedBack = c;
+					break;
+				}
+				if (game == null) {
+					game = new PgnGame();
+				}
+				readTag(game);
+				continue;
+			}
+			if (c == '{') {
+				skipUntil('}');
+				continue;
+			}
+			if (c == ';') {
+				skipUntil('\n');
+				continue;
+			}
+			if (c == '(') {
+				skipVariation();
+				continue;
+			}
+			if (c == '$') {
+				readToken(c);
+				continue;
+			}
+
+			readToken(c);
+			int start = skipMoveNumber();
+			if (start == tokenLength) {
+				continue;
+			}
+			if (game == null) {
+				game = new PgnGame();
+			}
+			String text = new String(token, start, tokenLength - start, StandardCharsets.ISO_8859_1);
+			if (isResult(text)) {
+				game.setResult(text);
+				break;
+			}
+			inMoves = true;
+			if (game.getError() != null) {
+				continue;
+			}
+			try {
+				if (match == null) {
+					match = game.startPosition();
+				}
+				int move = San.parse(match, text, legal);
+				match.doMove(move);
+				game.addMove(move);
+			}
+			catch (BoardException e) {
+				game.setError("Lance " + (game.getMoveCount() / 2 + 1) + ": " + e.getMessage());
+			}
+		}
+		if (game != null) {
+			gamesRead++;
+		}
+		return game;
+	}
+
+
+	//chama a ação para cada partida até o fim do arquivo
+	public void forEach(Consumer<PgnGame> action) throws IOException {
+		PgnGame game;
+		while ((game = next()) != null) {
+			action.accept(game);
+		}
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+
+	private int read() throws IOException {
+		if (pushedBack >= 0) {
+			int c = pushedBack;
+			pushedBack = -1;
+			return c;
+		}
+		if (!buffer.hasRemaining()) {
+			if (endOfInput) {
+				return -1;
+			}
+			buffer.clear();
+			int n;
+			do {
+				n = channel.read(buffer);
+			} while (n == 0);
+			buffer.flip();
+			if (n < 0) {
+				endOfInput = true;
+				return -1;
+			}
+		}
+		return buffer.get() & 0xFF;
+	}
+
+
+	private int skipSpaces() throws IOException {
+		int c;
+		do {
+			c = read();
+		} while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+		return c;
+	}
+
+
+	private void skipUntil(int end) throws IOException {
+		int c;
+		do {
+			c = read();
+		} while (c >= 0 && c != end);
+	}
+
+
+	//variantes podem ter outras variantes e comentários dentro
+	private void skipVariation() throws IOException {
+		int depth = 1;
+		while (depth > 0) {
+			int c = read();
+			if (c < 0) return;
+			if (c == '(') depth++;
+			else if (c == ')') depth--;
+			else if (c == '{') skipUntil('}');
+		}
+	}
+
+
+	private void readToken(int first) throws IOException {
+		tokenLength = 0;
+		int c = first;
+		while (c >= 0 && c > ' ' && "[]{}();".indexOf(c) < 0) {
+			append(c);
+			c = read();
+		}
+		if (c >= 0 && c > ' ') {
+			pushedBack = c;
+		}
+	}
+
+
+	//número do lance no início do token ("12." ou "12...", às vezes colado ao lance: "12.e4")
+	private int skipMoveNumber() {
+		int i = 0;
+		while (i < tokenLength && token[i] >= '0' && token[i] <= '9') {
+			i++;
+		}
+		if (i < tokenLength && token[i] == '.') {
+			while (i < tokenLength && token[i] == '.') {
+				i++;
+			}
+			return i;
+		}
+		return (i == tokenLength && i > 0) ? i : 0;
+	}
+
+
+	private void readTag(PgnGame game) throws IOException {
+		int c = skipSpaces();
+		tokenLength = 0;
+		while (c > ' ' && c != '"' && c != ']') {
+			append(c);
+			c = read();
+		}
+		String name = new String(token, 0, tokenLength, StandardCharsets.ISO_8859_1);
+		while (c >= 0 && c != '"' && c != ']') {
+			c = read();
+		}
+		tokenLength = 0;
+		if (c == '"') {
+			while ((c = read()) >= 0 && c != '"') {
+				if (c == '\\') {
+					c = read();
+				}
+				append(c);
+			}
+			skipUntil(']');
+		}
+		game.setTag(name, new String(token, 0, tokenLength, StandardCharsets.UTF_8));
+	}
+
+
+	private void append(int c) {
+		if (tokenLength == token.length) {
+			token = Arrays.copyOf(token, tokenLength * 2);
+		}
+		token[tokenLength++] = (byte) c;
+	}
+
+
+	private static boolean isResult(String text) {
+		return text.equals(PgnGame.WHITE_WINS) || text.equals(PgnGame.BLACK_WINS) || text.equals(PgnGame.DRAW) || text.equals(PgnGame.UNKNOWN);
+	}
+
+
+	//uso: PgnReader <arquivo.pgn>  lê todas as partidas e mostra a vazão
+	public static void main(String[] args) throws IOException {
+		long start = System.nanoTime();
+		long[] counts = new long[3];
+		try (PgnReader reader = open(Paths.get(args[0]))) {
+			reader.forEach(game -> {
+				counts[0]++;
+				counts[1] += game.getMoveCount();
+				if (game.getError() != null) {
+					counts[2]++;
+				}
+			});
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%,d games, %,d moves, %,d with errors in %.2f s (%,.0f games/s, %,.0f moves/s)%n",
+				counts[0], counts[1], counts[2], seconds, counts[0] / seconds, counts[1] / seconds);
+	}
+
+}
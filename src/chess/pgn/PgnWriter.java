@@ -0,0 +1,141 @@
+package chess.pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.MoveBuffer;
+
+//escreve partidas em PGN: as sete etiquetas obrigatórias primeiro, depois as demais,
+//e os lances em SAN com número do lance, em linhas de até 80 colunas
+public class PgnWriter implements Closeable {
+
+	private static final String[] SEVEN_TAG_ROSTER = { "Event", "Site", "Date", "Round", "White", "Black", "Result" };
+	private static final String[] DEFAULTS = { "?", "?", "????.??.??", "?", "?", "?", PgnGame.UNKNOWN };
+
+	private Writer out;
+	private MoveBuffer legal = new MoveBuffer();
+	private StringBuilder line = new StringBuilder(96);
+
+
+	public PgnWriter(Writer out) {
+		this.out = out;
+	}
+
+
+	//partida jogada num ChessMatch; o resultado é deduzido da posição final (mate ou afogamento)
+	public void write(ChessMatch match, Map<String, String> tags) throws IOException {
+		PgnGame game = PgnGame.of(match);
+		for (Map.Entry<String, String> tag : tags.entrySet()) {
+			game.setTag(tag.getKey(), tag.getValue());
+		}
+		write(game);
+	}
+
+
+	public void write(PgnGame game) throws IOException {
+		//refaz a partida para converter os lances em SAN e, sem resultado informado, deduzi-lo no fim
+		ChessMatch match = game.startPosition();
+		StringBuilder movetext = new StringBuilder(game.getMoveCount() * 6);
+		line.setLength(0);
+		int fullMove = (match.getTurn() + 1) / 2;
+		boolean first = true;
+		for (int i = 0; i < game.getMoveCount(); i++) {
+			int move = game.getMove(i);
+			boolean white = match.getCurrentPlayer() == Color.WHITE;
+			if (white) {
+				appendWord(movetext, fullMove + ".");
+			}
+			else if (first) {
+				appendWord(movetext, fullMove + "...");
+			}
+			appendWord(movetext, San.toSan(match, move, legal));
+			match.doMove(move);
+			if (!white) {
+				fullMove++;
+			}
+			first = false;
+		}
+
+		String result = game.getTag("Result");
+		if (result == null || result.equals(PgnGame.UNKNOWN)) {
+			result = game.getResult();
+		}
+		if (result == null || result.equals(PgnGame.UNKNOWN)) {
+			result = result(match);
+		}
+		appendWord(movetext, result);
+		movetext.append(line);
+
+		for (int i = 0; i < SEVEN_TAG_ROSTER.length; i++) {
+			String value = (i == SEVEN_TAG_ROSTER.length - 1) ? result : game.getTags().getOrDefault(SEVEN_TAG_ROSTER[i], DEFAULTS[i]);
+			writeTag(SEVEN_TAG_ROSTER[i], value);
+		}
+		for (Map.Entry<String, String> tag : game.getTags().entrySet()) {
+			if (!isRosterTag(tag.getKey())) {
+				writeTag(tag.getKey(), tag.getValue());
+			}
+		}
+		out.write('\n');
+		out.write(movetext.toString());
+		out.write("\n\n");
+	}
+
+
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+
+	private void appendWord(StringBuilder movetext, String word) {
+		if (line.length() > 0 && line.length() + 1 + word.length() > 80) {
+			movetext.append(line).append('\n');
+			line.setLength(0);
+		}
+		if (line.length() > 0) {
+			line.append(' ');
+		}
+		line.append(word);
+	}
+
+
+	private void writeTag(String name, String value) throws IOException {
+		out.write('[');
+		out.write(name);
+		out.write(" \"");
+		out.write(value.replace("\\", "\\\\").replace("\"", "\\\""));
+		out.write("\"]\n");
+	}
+
+
+	private static boolean isRosterTag(String name) {
+		for (String tag : SEVEN_TAG_ROSTER) {
+			if (tag.equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	private String result(ChessMatch match) {
+		match.legalMoves(legal);
+		if (legal.size() > 0) {
+			return PgnGame.UNKNOWN;
+		}
+		if (!match.isInCheck()) {
+			return PgnGame.DRAW;
+		}
+		return (match.getCurrentPlayer() == Color.WHITE) ? PgnGame.BLACK_WINS : PgnGame.WHITE_WINS;
+	}
+
+}
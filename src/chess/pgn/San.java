@@ -0,0 +1,219 @@
+package chess.pgn;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveBuffer;
+import chess.PieceType;
+
+//notação algébrica padrão (SAN): "e4", "Nbd7", "exd5", "O-O", "e8=Q+"
+public final class San {
+
+	private static final String PIECE_LETTERS = " NBRQK";
+	private static final PieceType[] TYPES = PieceType.values();
+
+
+	private San() {
+	}
+
+
+	//movimento legal da partida correspondente ao texto em SAN (sufixos +, #, ! e ? são ignorados)
+	public static int parse(ChessMatch match, String san, MoveBuffer legal) {
+		int end = san.length();
+		while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+			end--;
+		}
+		match.legalMoves(legal);
+
+		if (isCastle(san, end, 5)) {
+			return find(legal, Move.QUEEN_CASTLE, san);
+		}
+		if (isCastle(san, end, 3)) {
+			return find(legal, Move.KING_CASTLE, san);
+		}
+
+		int start = 0;
+		PieceType type = PieceType.PAWN;
+		if (end > 0 && PIECE_LETTERS.indexOf(san.charAt(0)) > 0) {
+			type = TYPES[PIECE_LETTERS.indexOf(san.charAt(0))];
+			start = 1;
+		}
+
+		//promoção: "e8=Q" ou "e8Q"
+		PieceType promotion = null;
+		if (end >= 2 && type == PieceType.PAWN && PIECE_LETTERS.indexOf(san.charAt(end - 1)) > 0) {
+			promotion = TYPES[PIECE_LETTERS.indexOf(san.charAt(end - 1))];
+			end--;
+			if (san.charAt(end - 1) == '=') {
+				end--;
+			}
+		}
+
+		if (end - start < 2) {
+			throw invalid(san);
+		}
+		int to = square(san.charAt(end - 2), san.charAt(end - 1));
+		if (to < 0) {
+			throw invalid(san);
+		}
+
+		//desambiguação: coluna e/ou fileira de origem entre a peça e o destino ("x" é opcional)
+		int fromColumn = -1;
+		int fromRow = -1;
+		for (int i = start; i < end - 2; i++) {
+			char c = san.charAt(i);
+			if (c >= 'a' && c <= 'h') fromColumn = c - 'a';
+			else if (c >= '1' && c <= '8') fromRow = 8 - (c - '0');
+			else if (c != 'x' && c != ':' && c != '-') throw invalid(san);
+		}
+
+		int found = Move.NONE;
+		for (int i = 0; i < legal.size(); i++) {
+			int move = legal.get(i);
+			int from = Move.from(move);
+			if (Move.to(move) != to || Move.isCastle(move) || ((ChessPiece) match.getBoard().piece(from)).getType() != type) {
+				continue;
+			}
+			if ((fromColumn >= 0 && (from & 7) != fromColumn) || (fromRow >= 0 && (from >>> 3) != fromRow)) {
+				continue;
+			}
+			if (Move.isPromotion(move) && Move.promotionType(move) != promotion) {
+				continue;
+			}
+			if (!Move.isPromotion(move) && promotion != null) {
+				continue;
+			}
+			if (found != Move.NONE) {
+				throw new ChessException("Movimento ambíguo: " + san);
+			}
+			found = move;
+		}
+		if (found == Move.NONE) {
+			throw new ChessException("Movimento ilegal: " + san);
+		}
+		return found;
+	}
+
+
+	public static int parse(ChessMatch match, String san) {
+		return parse(match, san, new MoveBuffer());
+	}
+
+
+	//SAN de um movimento legal na posição atual da partida (joga e desfaz o movimento para marcar + ou #)
+	public static String toSan(ChessMatch match, int move, MoveBuffer legal) {
+		StringBuilder sb = new StringBuilder(8);
+		int from = Move.from(move);
+		int to = Move.to(move);
+		if (Move.flags(move) == Move.KING_CASTLE) {
+			sb.append("O-O");
+		}
+		else if (Move.flags(move) == Move.QUEEN_CASTLE) {
+			sb.append("O-O-O");
+		}
+		else {
+			PieceType type = ((ChessPiece) match.getBoard().piece(from)).getType();
+			if (type == PieceType.PAWN) {
+				if (Move.isCapture(move)) {
+					sb.append((char) ('a' + (from & 7)));
+				}
+			}
+			else {
+				sb.append(PIECE_LETTERS.charAt(type.ordinal()));
+				appendDisambiguation(match, move, type, legal, sb);
+			}
+			if (Move.isCapture(move)) {
+				sb.append('x');
+			}
+			sb.append(Move.squareName(to));
+			if (Move.isPromotion(move)) {
+				sb.append('=').append(PIECE_LETTERS.charAt(Move.promotionType(move).ordinal()));
+			}
+		}
+
+		match.doMove(move);
+		if (match.isInCheck()) {
+			match.legalMoves(legal);
+			sb.append(legal.size() == 0 ? '#' : '+');
+		}
+		match.undoMove(move);
+		return sb.toString();
+	}
+
+
+	public static String toSan(ChessMatch match, int move) {
+		return toSan(match, move, new MoveBuffer());
+	}
+
+
+	//coluna, fileira ou as duas, conforme as outras peças do mesmo tipo que alcançam o destino
+	private static void appendDisambiguation(ChessMatch match, int move, PieceType type, MoveBuffer legal, StringBuilder sb) {
+		int from = Move.from(move);
+		boolean ambiguous = false;
+		boolean sameColumn = false;
+		boolean sameRow = false;
+		match.legalMoves(legal);
+		for (int i = 0; i < legal.size(); i++) {
+			int other = legal.get(i);
+			int otherFrom = Move.from(other);
+			if (otherFrom == from || Move.to(other) != Move.to(move) || ((ChessPiece) match.getBoard().piece(otherFrom)).getType() != type) {
+				continue;
+			}
+			ambiguous = true;
+			sameColumn |= (otherFrom & 7) == (from & 7);
+			sameRow |= (otherFrom >>> 3) == (from >>> 3);
+		}
+		if (!ambiguous) {
+			return;
+		}
+		if (!sameColumn) {
+			sb.append((char) ('a' + (from & 7)));
+		}
+		else if (!sameRow) {
+			sb.append((char) ('0' + 8 - (from >>> 3)));
+		}
+		else {
+			sb.append(Move.squareName(from));
+		}
+	}
+
+
+	//"O-O" / "O-O-O", aceitando também zeros
+	private static boolean isCastle(String san, int end, int length) {
+		if (end != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			char c = san.charAt(i);
+			if ((i % 2 == 0 && c != 'O' && c != '0') || (i % 2 == 1 && c != '-')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	private static int find(MoveBuffer legal, int flags, String san) {
+		for (int i = 0; i < legal.size(); i++) {
+			if (Move.flags(legal.get(i)) == flags) {
+				return legal.get(i);
+			}
+		}
+		throw new ChessException("Movimento ilegal: " + san);
+	}
+
+
+	private static int square(char column, char row) {
+		if (column < 'a' || column > 'h' || row < '1' || row > '8') {
+			return -1;
+		}
+		return (8 - (row - '0')) * 8 + (column - 'a');
+	}
+
+
+	private static ChessException invalid(String san) {
+		return new ChessException("SAN inválida: " + san);
+	}
+
+}
@@ -1,9 +1,10 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class Bishop extends ChessPiece{
 
@@ -12,54 +13,15 @@ public class Bishop extends ChessPiece{
 	}
 
 	@Override
-	public boolean[][] possibleMoves() {
-		boolean[][] matriz = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-		Position pos = new Position(0, 0);
-
-		//nw
-		pos.setValues(position.getRow() - 1, position.getColumn() - 1);
-		while (getBoard().positionExists(pos) && !getBoard().thereIsAPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-			pos.setValues(pos.getRow() - 1, pos.getColumn() - 1);
-		}
-		if (getBoard().positionExists(pos) && isThereOpponentPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		//ne
-		pos.setValues(position.getRow() - 1, position.getColumn() + 1);
-		while (getBoard().positionExists(pos) && !getBoard().thereIsAPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-			pos.setValues(pos.getRow() - 1, pos.getColumn() + 1);
-		}
-		if (getBoard().positionExists(pos) && isThereOpponentPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		// se
-		pos.setValues(position.getRow() + 1, position.getColumn() + 1);
-		while (getBoard().positionExists(pos) && !getBoard().thereIsAPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-			pos.setValues(pos.getRow() + 1, pos.getColumn() + 1);
-		}
-		if (getBoard().positionExists(pos) && isThereOpponentPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		// sw
-		pos.setValues(position.getRow() + 1, position.getColumn() - 1);
-		while (getBoard().positionExists(pos) && !getBoard().thereIsAPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-			pos.setValues(pos.getRow() + 1, pos.getColumn() -1);
-		}
-		if (getBoard().positionExists(pos) && isThereOpponentPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		return matriz;
+	public long attacks() {
+		return Attacks.bishop(getSquare(), getChessBoard().occupied());
 	}
 	
+	@Override
+	public PieceType getType() {
+		return PieceType.BISHOP;
+	}
+
 	@Override
 	public String toString() {
 		return "B";
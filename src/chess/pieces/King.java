@@ -1,10 +1,13 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.Move;
+import chess.MoveBuffer;
+import chess.PieceType;
 
 public class King extends ChessPiece{
 	
@@ -15,105 +18,74 @@ public class King extends ChessPiece{
 		this.chessMatch = chessMatch;
 	}
 	
+	@Override
+	public PieceType getType() {
+		return PieceType.KING;
+	}
+
 	@Override
 	public String toString() {
 		return "K";
 	}
 
 	
-	private boolean canMove(Position position) {
-		ChessPiece p = (ChessPiece) getBoard().piece(position);
-		return p == null || p.getColor() != getColor();
-	}
-	
-	private boolean testRookCastling(Position position) {
-		ChessPiece p = (ChessPiece) getBoard().piece(position);
+	private boolean testRookCastling(int square) {
+		ChessPiece p = (ChessPiece) getBoard().piece(square);
 		return p != null && p instanceof Rook && p.getColor() == getColor() && p.getMoveCount() == 0;
 	}
 	
 
 	@Override
-	public boolean[][] possibleMoves() {
-		boolean[][] matriz = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-		Position pos = new Position(0, 0);
-
-		// above
-		pos.setValues(position.getRow() - 1, position.getColumn());
-		if (getBoard().positionExists(pos) && canMove(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		// below
-		pos.setValues(position.getRow() + 1, position.getColumn());
-		if (getBoard().positionExists(pos) && canMove(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		// left
-		pos.setValues(position.getRow(), position.getColumn() - 1);
-		if (getBoard().positionExists(pos) && canMove(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		// right
-		pos.setValues(position.getRow(), position.getColumn() + 1);
-		if (getBoard().positionExists(pos) && canMove(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		// nw
-		pos.setValues(position.getRow() - 1, position.getColumn() - 1);
-		if (getBoard().positionExists(pos) && canMove(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		// ne
-		pos.setValues(position.getRow() - 1, position.getColumn() + 1);
-		if (getBoard().positionExists(pos) && canMove(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		// sw
-		pos.setValues(position.getRow() + 1, position.getColumn() - 1);
-		if (getBoard().positionExists(pos) && canMove(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
+	public long attacks() {
+		return Attacks.king(getSquare());
+	}
 
-		// se
-		pos.setValues(position.getRow() + 1, position.getColumn() + 1);
-		if (getBoard().positionExists(pos) && canMove(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
+	@Override
+	public long moves() {
+		long moves = super.moves();
+		int square = getSquare();
+		int column = square & 7;
+		long occupied = getChessBoard().occupied();
 		
 		//#SpecialMove Castling
 		if(getMoveCount() == 0 && !chessMatch.getCheck()) {
 			//SpecialMove castling kingSide Rook
-			Position posT1 = new Position(position.getRow(), position.getColumn() + 3);
-			if(testRookCastling(posT1)) {
-				Position p1 = new Position(position.getRow(), position.getColumn() + 1);
-				Position p2 = new Position(position.getRow(), position.getColumn() + 2);
-				
-				if(getBoard().piece(p1) == null && getBoard().piece(p2) == null) {
-					matriz[position.getRow()][position.getColumn() + 2] = true;
+			if(column + 3 < 8 && testRookCastling(square + 3)) {
+				long between = (1L << (square + 1)) | (1L << (square + 2));
+				if((occupied & between) == 0) {
+					moves |= 1L << (square + 2);
 				}
-				
 			}
 			//SpecialMove castling Queenside rook
-			Position posT2 = new Position(position.getRow(), position.getColumn() - 4);
-			if(testRookCastling(posT2)) {
-				Position p1 = new Position(position.getRow(), position.getColumn() - 1);
-				Position p2 = new Position(position.getRow(), position.getColumn() - 2);
-				Position p3 = new Position(position.getRow(), position.getColumn() - 3);
-				
-				if(getBoard().piece(p1) == null && getBoard().piece(p2) == null && getBoard().piece(p3) == null) {
-					matriz[position.getRow()][position.getColumn() - 2] = true;
+			if(column - 4 >= 0 && testRookCastling(square - 4)) {
+				long between = (1L << (square - 1)) | (1L << (square - 2)) | (1L << (square - 3));
+				if((occupied & between) == 0) {
+					moves |= 1L << (square - 2);
 				}
-				
 			}
 		}
 		
-		return matriz;
+		return moves;
+	}
+
+	@Override
+	public void generateMoves(MoveBuffer buffer) {
+		int from = getSquare();
+		long opponent = getChessBoard().pieces(getColor() == Color.WHITE ? Color.BLACK : Color.WHITE);
+		long moves = moves();
+		while (moves != 0) {
+			int to = Long.numberOfTrailingZeros(moves);
+			if (to == from + 2) {
+				buffer.add(Move.of(from, to, Move.KING_CASTLE));
+			}
+			else if (to == from - 2) {
+				buffer.add(Move.of(from, to, Move.QUEEN_CASTLE));
+			}
+			else {
+				buffer.add(Move.of(from, to, (opponent & (1L << to)) != 0 ? Move.CAPTURE : Move.QUIET));
+			}
+			moves &= moves - 1;
+		}
 	}
 
 }
@@ -1,9 +1,10 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class Knight extends ChessPiece {
 
@@ -11,65 +12,16 @@ public class Knight extends ChessPiece {
 		super(board, color);
 	}
 
-	private boolean canMove(Position position) {
-		ChessPiece p = (ChessPiece) getBoard().piece(position);
-		return p == null || p.getColor() != getColor();
-	}
-
 	@Override
-	public boolean[][] possibleMoves() {
-		boolean[][] matriz = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-		Position pos = new Position(0, 0);
-
-
-		pos.setValues(position.getRow() - 1, position.getColumn() - 2);
-		if (getBoard().positionExists(pos) && canMove(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		pos.setValues(position.getRow() -2, position.getColumn() - 1);
-		if (getBoard().positionExists(pos) && canMove(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-
-		pos.setValues(position.getRow() - 2, position.getColumn() + 1);
-		if (getBoard().positionExists(pos) && canMove(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-
-		pos.setValues(position.getRow() - 1, position.getColumn() + 2);
-		if (getBoard().positionExists(pos) && canMove(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-
-		pos.setValues(position.getRow() + 1, position.getColumn() + 2);
-		if (getBoard().positionExists(pos) && canMove(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-
-		pos.setValues(position.getRow() + 2, position.getColumn() + 1);
-		if (getBoard().positionExists(pos) && canMove(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		pos.setValues(position.getRow() + 2, position.getColumn() - 1);
-		if (getBoard().positionExists(pos) && canMove(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-
-		pos.setValues(position.getRow() + 1, position.getColumn() -2);
-		if (getBoard().positionExists(pos) && canMove(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-		return matriz;
+	public long attacks() {
+		return Attacks.knight(getSquare());
 	}
 	
+	@Override
+	public PieceType getType() {
+		return PieceType.KNIGHT;
+	}
+
 	@Override
 	public String toString() {
 		return "N";
@@ -1,10 +1,13 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.Move;
+import chess.MoveBuffer;
+import chess.PieceType;
 
 public class Pawn extends ChessPiece {
 	
@@ -16,79 +19,97 @@ public class Pawn extends ChessPiece {
 	}
 
 	@Override
-	public boolean[][] possibleMoves() {
-		boolean[][] matriz = new boolean[getBoard().getRows()][getBoard().getColumns()];
+	public long attacks() {
+		return Attacks.pawn(getColor(), getSquare());
+	}
 
-		Position pos = new Position(0, 0);
+	@Override
+	public long moves() {
+		int square = getSquare();
+		long bit = 1L << square;
+		long empty = ~getChessBoard().occupied();
+		long opponent = getChessBoard().pieces(getColor() == Color.WHITE ? Color.BLACK : Color.WHITE);
+		long moves = attacks() & opponent;
 		
 		if (getColor() == Color.WHITE) {
-			pos.setValues(position.getRow() - 1, position.getColumn());
-			if (getBoard().positionExists(pos) && !getBoard().thereIsAPiece(pos)) {
-				matriz[pos.getRow()][pos.getColumn()] = true;
-			}
-			pos.setValues(position.getRow() - 2, position.getColumn());
-			Position p2 = new Position(position.getRow() - 1, position.getColumn());
-			if (getBoard().positionExists(pos) && !getBoard().thereIsAPiece(pos) && getBoard().positionExists(p2) && !getBoard().thereIsAPiece(p2) && getMoveCount() == 0) {
-				matriz[pos.getRow()][pos.getColumn()] = true;
-			}
-			pos.setValues(position.getRow() - 1, position.getColumn() - 1);
-			if (getBoard().positionExists(pos) && isThereOpponentPiece(pos)) {
-				matriz[pos.getRow()][pos.getColumn()] = true;
-			}			
-			pos.setValues(position.getRow() - 1, position.getColumn() + 1);
-			if (getBoard().positionExists(pos) && isThereOpponentPiece(pos)) {
-				matriz[pos.getRow()][pos.getColumn()] = true;
+			long one = (bit >>> 8) & empty;
+			moves |= one;
+			if (getMoveCount() == 0) {
+				moves |= (one >>> 8) & empty;
 			}
 			
 			//SpecialMove en passant white
-			if(position.getRow() == 3) {
-				Position left = new Position(position.getRow(), position.getColumn() -1);
-				if(getBoard().positionExists(left) && isThereOpponentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVulnerable()) {
-					matriz[left.getRow() -1][left.getColumn()] = true;
-				}
-				
-				Position right = new Position(position.getRow(), position.getColumn() +1);
-				if(getBoard().positionExists(right) && isThereOpponentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVulnerable()) {
-					matriz[right.getRow() -1][right.getColumn()] = true;
-				}
+			if((square >>> 3) == 3) {
+				moves |= enPassant(square, -8);
 			}
-			
 		}
 		else {
-			pos.setValues(position.getRow() + 1, position.getColumn());
-			if (getBoard().positionExists(pos) && !getBoard().thereIsAPiece(pos)) {
-				matriz[pos.getRow()][pos.getColumn()] = true;
-			}
-			pos.setValues(position.getRow() + 2, position.getColumn());
-			Position p2 = new Position(position.getRow() + 1, position.getColumn());
-			if (getBoard().positionExists(pos) && !getBoard().thereIsAPiece(pos) && getBoard().positionExists(p2) && !getBoard().thereIsAPiece(p2) && getMoveCount() == 0) {
-				matriz[pos.getRow()][pos.getColumn()] = true;
+			long one = (bit << 8) & empty;
+			moves |= one;
+			if (getMoveCount() == 0) {
+				moves |= (one << 8) & empty;
 			}
-			pos.setValues(position.getRow() + 1, position.getColumn() - 1);
-			if (getBoard().positionExists(pos) && isThereOpponentPiece(pos)) {
-				matriz[pos.getRow()][pos.getColumn()] = true;
-			}			
-			pos.setValues(position.getRow() + 1, position.getColumn() + 1);
-			if (getBoard().positionExists(pos) && isThereOpponentPiece(pos)) {
-				matriz[pos.getRow()][pos.getColumn()] = true;
-			}	
+			
 			//SpecialMove en passant black
-			if(position.getRow() == 4) {
-				Position left = new Position(position.getRow(), position.getColumn() -1);
-				if(getBoard().positionExists(left) && isThereOpponentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVulnerable()) {
-					matriz[left.getRow() +1][left.getColumn()] = true;
-				}
-				
-				Position right = new Position(position.getRow(), position.getColumn() +1);
-				if(getBoard().positionExists(right) && isThereOpponentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVulnerable()) {
-					matriz[right.getRow() +1][right.getColumn()] = true;
-				}
+			if((square >>> 3) == 4) {
+				moves |= enPassant(square, 8);
 			}
 		}
 		
-		return matriz;
+		return moves;
 	}
 	
+	@Override
+	public void generateMoves(MoveBuffer buffer) {
+		int from = getSquare();
+		long opponent = getChessBoard().pieces(getColor() == Color.WHITE ? Color.BLACK : Color.WHITE);
+		int lastRow = (getColor() == Color.WHITE) ? 0 : 7;
+		long moves = moves();
+		while (moves != 0) {
+			int to = Long.numberOfTrailingZeros(moves);
+			boolean capture = (opponent & (1L << to)) != 0;
+			if ((to >>> 3) == lastRow) {
+				//#SpecialMove promotion: um movimento para cada peça possível
+				buffer.add(Move.promotion(from, to, PieceType.QUEEN, capture));
+				buffer.add(Move.promotion(from, to, PieceType.ROOK, capture));
+				buffer.add(Move.promotion(from, to, PieceType.BISHOP, capture));
+				buffer.add(Move.promotion(from, to, PieceType.KNIGHT, capture));
+			}
+			else if (capture) {
+				buffer.add(Move.of(from, to, Move.CAPTURE));
+			}
+			else if (((from ^ to) & 7) != 0) {
+				buffer.add(Move.of(from, to, Move.EN_PASSANT));
+			}
+			else if (to == from + 16 || to == from - 16) {
+				buffer.add(Move.of(from, to, Move.DOUBLE_PAWN_PUSH));
+			}
+			else {
+				buffer.add(Move.of(from, to, Move.QUIET));
+			}
+			moves &= moves - 1;
+		}
+	}
+	
+	//casa de destino da captura en passant, se o peão ao lado for o vulnerável
+	private long enPassant(int square, int forward) {
+		ChessPiece vulnerable = chessMatch.getEnPassantVulnerable();
+		long moves = 0L;
+		int column = square & 7;
+		if(column > 0 && getBoard().piece(square - 1) == vulnerable && isThereOpponentPiece(square - 1)) {
+			moves |= 1L << (square - 1 + forward);
+		}
+		if(column < 7 && getBoard().piece(square + 1) == vulnerable && isThereOpponentPiece(square + 1)) {
+			moves |= 1L << (square + 1 + forward);
+		}
+		return moves;
+	}
+	
+	@Override
+	public PieceType getType() {
+		return PieceType.PAWN;
+	}
+
 	@Override
 	public String toString() {
 		return "P";
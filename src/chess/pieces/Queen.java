@@ -1,9 +1,10 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class Queen extends ChessPiece {
 
@@ -12,96 +13,15 @@ public class Queen extends ChessPiece {
 	}
 
 	@Override
-	public boolean[][] possibleMoves() {
-		boolean[][] matriz = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-		Position pos = new Position(0, 0);
-
-		// above (cima)
-		pos.setValues(position.getRow() - 1, position.getColumn());
-		// enquanto a posição "pos" existir e não tiver peça lá marque a posição como
-		// verdadeira
-		while (getBoard().positionExists(pos) && !getBoard().thereIsAPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-			pos.setRow(pos.getRow() - 1);
-		}
-		if (getBoard().positionExists(pos) && isThereOpponentPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		// left (esquerda)
-		pos.setValues(position.getRow(), position.getColumn() - 1);
-		while (getBoard().positionExists(pos) && !getBoard().thereIsAPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-			pos.setColumn(pos.getColumn() - 1);
-		}
-		if (getBoard().positionExists(pos) && isThereOpponentPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		// right (direita)
-		pos.setValues(position.getRow(), position.getColumn() + 1);
-		while (getBoard().positionExists(pos) && !getBoard().thereIsAPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-			pos.setColumn(pos.getColumn() + 1);
-		}
-		if (getBoard().positionExists(pos) && isThereOpponentPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		// below (abaixo)
-		pos.setValues(position.getRow() + 1, position.getColumn());
-		while (getBoard().positionExists(pos) && !getBoard().thereIsAPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-			pos.setRow(pos.getRow() + 1);
-		}
-		if (getBoard().positionExists(pos) && isThereOpponentPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		// nw
-		pos.setValues(position.getRow() - 1, position.getColumn() - 1);
-		while (getBoard().positionExists(pos) && !getBoard().thereIsAPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-			pos.setValues(pos.getRow() - 1, pos.getColumn() - 1);
-		}
-		if (getBoard().positionExists(pos) && isThereOpponentPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		// ne
-		pos.setValues(position.getRow() - 1, position.getColumn() + 1);
-		while (getBoard().positionExists(pos) && !getBoard().thereIsAPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-			pos.setValues(pos.getRow() - 1, pos.getColumn() + 1);
-		}
-		if (getBoard().positionExists(pos) && isThereOpponentPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		// se
-		pos.setValues(position.getRow() + 1, position.getColumn() + 1);
-		while (getBoard().positionExists(pos) && !getBoard().thereIsAPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-			pos.setValues(pos.getRow() + 1, pos.getColumn() + 1);
-		}
-		if (getBoard().positionExists(pos) && isThereOpponentPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		// sw
-		pos.setValues(position.getRow() + 1, position.getColumn() - 1);
-		while (getBoard().positionExists(pos) && !getBoard().thereIsAPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-			pos.setValues(pos.getRow() + 1, pos.getColumn() - 1);
-		}
-		if (getBoard().positionExists(pos) && isThereOpponentPiece(pos)) {
-			matriz[pos.getRow()][pos.getColumn()] = true;
-		}
-
-		return matriz;
+	public long attacks() {
+		return Attacks.queen(getSquare(), getChessBoard().occupied());
 	}
 	
+	@Override
+	public PieceType getType() {
+		return PieceType.QUEEN;
+	}
+
 	@Override
 	public String toString() {
 		return "Q";
@@ -0,0 +1,104 @@
+package chess.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import boardgame.BoardException;
+import chess.ChessException;
+import chess.ChessSnapshot;
+import chess.MoveResult;
+import chess.server.Metrics.Operation;
+
+//atende uma conexão com um protocolo de texto, uma linha por comando:
+//  NEW                 -> OK <id>
+//  MOVE <id> <e2e4>    -> OK <PLAYING|CHECK|CHECKMATE|STALEMATE>
+//  STATE <id>          -> OK <WHITE|BLACK> <turno> <hash> <PLAYING|CHECK|CHECKMATE|STALEMATE>
+//  MOVES <id>          -> OK <movimento> ...
+//  CLOSE <id>          -> OK
+//  STATS               -> OK <partidas> <movimentos> <p99 dos movimentos em us>
+//  QUIT
+//erros respondem ERR <mensagem>
+class ClientHandler implements Runnable {
+
+	private GameServer server;
+	private Socket socket;
+
+
+	ClientHandler(GameServer server, Socket socket) {
+		this.server = server;
+		this.socket = socket;
+	}
+
+
+	@Override
+	public void run() {
+		try (Socket s = socket;
+				BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+				PrintWriter out = new PrintWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8), true)) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.trim().equalsIgnoreCase("QUIT")) {
+					break;
+				}
+				out.println(handle(line.trim().split("\\s+")));
+			}
+		}
+		catch (IOException e) {
+			//cliente desconectou (ou o servidor fechou a conexão em stop())
+		}
+		finally {
+			server.disconnected(socket);
+		}
+	}
+
+
+	private String handle(String[] command) {
+		try {
+			switch (command[0].toUpperCase()) {
+			case "NEW":
+				return "OK " + server.createMatch();
+			case "MOVE":
+				long id = parseId(command);
+				if (command.length < 3) {
+					throw new ChessException("Informe o movimento");
+				}
+				MoveResult result = server.tryMove(id, command[2]);
+				return result.isOk() ? "OK " + server.getStatus(id) : "ERR " + result.getMessage();
+			case "STATE":
+				id = parseId(command);
+				ChessSnapshot snapshot = server.getState(id);
+				return "OK " + snapshot.getCurrentPlayer() + " " + snapshot.getTurn() + " "
+						+ Long.toHexString(snapshot.getPositionHash()) + " " + server.getStatus(id);
+			case "MOVES":
+				return ("OK " + String.join(" ", server.legalMoves(parseId(command)))).trim();
+			case "CLOSE":
+				server.closeMatch(parseId(command));
+				return "OK";
+			case "STATS":
+				LatencyHistogram moves = server.getMetrics().get(Operation.MOVE);
+				return "OK " + server.getMatchCount() + " " + moves.getCount() + " " + moves.percentile(99) / 1000;
+			default:
+				return "ERR Comando desconhecido: " + command[0];
+			}
+		}
+		catch (BoardException e) {
+			return "ERR " + e.getMessage();
+		}
+	}
+
+
+	private static long parseId(String[] command) {
+		try {
+			return Long.parseLong(command[1]);
+		}
+		catch (RuntimeException e) {
+			throw new ChessException("Informe o número da partida");
+		}
+	}
+
+}
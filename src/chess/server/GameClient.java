@@ -0,0 +1,76 @@
+package chess.server;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import chess.ChessException;
+
+//cliente do protocolo de texto do GameServer (ver ClientHandler)
+public class GameClient implements Closeable {
+
+	private Socket socket;
+	private BufferedReader in;
+	private PrintWriter out;
+
+
+	public GameClient(int port) throws IOException {
+		socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		socket.setTcpNoDelay(true);
+		in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+		out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+	}
+
+
+	//envia um comando e devolve a resposta sem o "OK"; respostas "ERR" viram ChessException
+	public String send(String command) throws IOException {
+		out.println(command);
+		String reply = in.readLine();
+		if (reply == null) {
+			throw new IOException("Conexão encerrada pelo servidor");
+		}
+		if (reply.startsWith("ERR")) {
+			throw new ChessException(reply.substring(3).trim());
+		}
+		return reply.substring(2).trim();
+	}
+
+
+	public long createMatch() throws IOException {
+		return Long.parseLong(send("NEW"));
+	}
+
+
+	//devolve PLAYING, CHECK, CHECKMATE ou STALEMATE
+	public String move(long id, String move) throws IOException {
+		return send("MOVE " + id + " " + move);
+	}
+
+
+	public List<String> legalMoves(long id) throws IOException {
+		String reply = send("MOVES " + id);
+		return reply.isEmpty() ? new ArrayList<>() : Arrays.asList(reply.split(" "));
+	}
+
+
+	public void closeMatch(long id) throws IOException {
+		send("CLOSE " + id);
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		out.println("QUIT");
+		socket.close();
+	}
+
+}
@@ -0,0 +1,283 @@
+package chess.server;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessSnapshot;
+import chess.Move;
+import chess.MoveBuffer;
+import chess.MoveResult;
+import chess.PieceType;
+import chess.server.Metrics.Operation;
+
+//servidor sem interface que hospeda muitas partidas ao mesmo tempo, identificadas por número
+//não há trava global: o mapa de partidas é concorrente e cada partida serializa os próprios movimentos;
+//cada conexão é atendida numa thread virtual (quando a JVM tem) ou numa thread comum
+public class GameServer {
+
+	public static final String PLAYING = "PLAYING";
+	public static final String CHECK = "CHECK";
+	public static final String CHECKMATE = "CHECKMATE";
+	public static final String STALEMATE = "STALEMATE";
+
+	private final ConcurrentHashMap<Long, GameSession> sessions = new ConcurrentHashMap<>();
+	private final AtomicLong nextId = new AtomicLong(1);
+	private final Metrics metrics = new Metrics();
+
+	private ExecutorService executor;
+	private ServerSocket serverSocket;
+	//conexões abertas: stop() as fecha para liberar as threads presas em readLine
+	private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+
+	public long createMatch() {
+		long start = System.nanoTime();
+		long id = nextId.getAndIncrement();
+		sessions.put(id, new GameSession(id));
+		metrics.record(Operation.CREATE, System.nanoTime() - start);
+		return id;
+	}
+
+
+	//joga um movimento em notação de coordenadas ("e2e4", "e7e8n") e devolve a posição resultante;
+	//lances recusados viram ChessException
+	public ChessSnapshot move(long id, String move) {
+		MoveResult result = tryMove(id, move);
+		if (!result.isOk()) {
+			throw new ChessException(result.getMessage());
+		}
+		return session(id).getSnapshot();
+	}
+
+
+	//como move, mas devolve o motivo da recusa sem criar exceção (bots e clientes que mandam muitos lances inválidos)
+	public MoveResult tryMove(long id, String move) {
+		long start = System.nanoTime();
+		GameSession session = session(id);
+		int source = parseSquare(move, 0);
+		int target = parseSquare(move, 2);
+		PieceType promotion = (move.length() > 4) ? parsePromotion(move.charAt(4)) : PieceType.QUEEN;
+
+		ReentrantLock lock = session.getLock();
+		lock.lock();
+		try {
+			ChessMatch match = session.getMatch();
+			//a peça da promoção entra na escolha do lance, para check e xeque-mate valerem para ela
+			MoveResult result = match.tryMove(source, target, promotion);
+			if (result.isOk()) {
+				session.publish();
+			}
+			return result;
+		}
+		finally {
+			lock.unlock();
+			metrics.record(Operation.MOVE, System.nanoTime() - start);
+		}
+	}
+
+
+	//leitura sem trava da última posição publicada
+	public ChessSnapshot getState(long id) {
+		long start = System.nanoTime();
+		ChessSnapshot snapshot = session(id).getSnapshot();
+		metrics.record(Operation.STATE, System.nanoTime() - start);
+		return snapshot;
+	}
+
+
+	public String getStatus(long id) {
+		return session(id).getStatus();
+	}
+
+
+	public List<String> legalMoves(long id) {
+		long start = System.nanoTime();
+		GameSession session = session(id);
+		List<String> list = new ArrayList<>();
+		ReentrantLock lock = session.getLock();
+		lock.lock();
+		try {
+			ChessMatch match = session.getMatch();
+			if (!match.getCheckMate()) {
+				MoveBuffer moves = match.legalMoves();
+				for (int i = 0; i < moves.size(); i++) {
+					list.add(Move.toString(moves.get(i)));
+				}
+			}
+		}
+		finally {
+			lock.unlock();
+			metrics.record(Operation.LEGAL_MOVES, System.nanoTime() - start);
+		}
+		return list;
+	}
+
+
+	public void closeMatch(long id) {
+		long start = System.nanoTime();
+		if (sessions.remove(id) == null) {
+			throw new ChessException("Partida não encontrada: " + id);
+		}
+		metrics.record(Operation.CLOSE, System.nanoTime() - start);
+	}
+
+
+	public int getMatchCount() {
+		return sessions.size();
+	}
+
+
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+
+	//abre o socket (porta 0 = qualquer porta livre) e devolve a porta usada
+	public int start(int port) throws IOException {
+		serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+		executor = newSessionExecutor();
+		Thread acceptor = new Thread(this::acceptLoop, "game-server-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		return serverSocket.getLocalPort();
+	}
+
+
+	public void stop() {
+		try {
+			if (serverSocket != null) {
+				serverSocket.close();
+			}
+		}
+		catch (IOException e) {
+			//já fechado
+		}
+		for (Socket socket : clients) {
+			close(socket);
+		}
+		if (executor != null) {
+			executor.shutdownNow();
+			try {
+				executor.awaitTermination(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+
+	private void acceptLoop() {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				clients.add(socket);
+				executor.execute(new ClientHandler(this, socket));
+			}
+			catch (IOException e) {
+				//socket fechado por stop()
+			}
+			catch (RejectedExecutionException e) {
+				//conexão aceita enquanto stop() encerrava o executor
+				for (Socket socket : clients) {
+					close(socket);
+				}
+			}
+		}
+	}
+
+
+	//chamado pelo ClientHandler quando a conexão termina
+	void disconnected(Socket socket) {
+		clients.remove(socket);
+	}
+
+
+	private static void close(Socket socket) {
+		try {
+			socket.close();
+		}
+		catch (IOException e) {
+			//já fechado
+		}
+	}
+
+
+	private GameSession session(long id) {
+		GameSession session = sessions.get(id);
+		if (session == null) {
+			throw new ChessException("Partida não encontrada: " + id);
+		}
+		return session;
+	}
+
+
+	//casa (0 a 63) das duas letras a partir de index ("e2"), ou -1 se não for uma casa válida
+	private static int parseSquare(String move, int index) {
+		if (move.length() < index + 2) {
+			return -1;
+		}
+		int column = Character.toLowerCase(move.charAt(index)) - 'a';
+		int row = move.charAt(index + 1) - '1';
+		if (column < 0 || column > 7 || row < 0 || row > 7) {
+			return -1;
+		}
+		return (7 - row) * 8 + column;
+	}
+
+
+	//peça da promoção pela letra (n, b, r, q); outras letras valem como rainha
+	private static PieceType parsePromotion(char letter) {
+		switch (Character.toLowerCase(letter)) {
+		case 'n': return PieceType.KNIGHT;
+		case 'b': return PieceType.BISHOP;
+		case 'r': return PieceType.ROOK;
+		default: return PieceType.QUEEN;
+		}
+	}
+
+
+	//uma thread virtual por tarefa quando a JVM oferece (Java 21+); senão, threads comuns sob demanda
+	static ExecutorService newSessionExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		}
+		catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(r -> {
+				Thread t = new Thread(r);
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+
+	//uso: GameServer [porta]
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int port = (args.length > 0) ? Integer.parseInt(args[0]) : 7777;
+		GameServer server = new GameServer();
+		port = server.start(port);
+		System.out.println("Servidor em 127.0.0.1:" + port);
+		while (true) {
+			Thread.sleep(10000);
+			System.out.print(server.getMatchCount() + " partidas\n" + server.getMetrics().report());
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package chess.server;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import chess.ChessMatch;
+import chess.ChessSnapshot;
+
+//uma partida hospedada no servidor: os movimentos passam pela trava da própria partida,
+//e a última fotografia fica publicada para leituras sem trava (espectadores, estado)
+class GameSession {
+
+	private final long id;
+	private final ChessMatch match = new ChessMatch();
+
+	//ReentrantLock em vez de synchronized para não prender a thread virtual à thread da plataforma
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private volatile ChessSnapshot snapshot;
+	private volatile String status = GameServer.PLAYING;
+
+
+	GameSession(long id) {
+		this.id = id;
+		snapshot = match.snapshot();
+	}
+
+
+	long getId() {
+		return id;
+	}
+
+
+	ChessMatch getMatch() {
+		return match;
+	}
+
+
+	ReentrantLock getLock() {
+		return lock;
+	}
+
+
+	ChessSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+
+	String getStatus() {
+		return status;
+	}
+
+
+	//chamado com a trava, depois de cada movimento
+	void publish() {
+		snapshot = match.snapshot();
+		status = match.getCheckMate() ? GameServer.CHECKMATE : match.getStalemate() ? GameServer.STALEMATE
+				: match.getCheck() ? GameServer.CHECK : GameServer.PLAYING;
+	}
+
+}
@@ -0,0 +1,86 @@
+package chess.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//histograma de latências sem travas: faixas logarítmicas (potência de 2) divididas em 8 subfaixas,
+//o que dá percentis com erro de no máximo 12,5% usando um array fixo de contadores
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKETS = 8;
+
+	private AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+	private LongAdder count = new LongAdder();
+	private LongAdder totalNanos = new LongAdder();
+	private AtomicLong maxNanos = new AtomicLong();
+
+
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		buckets.incrementAndGet(bucket(nanos));
+		count.increment();
+		totalNanos.add(nanos);
+		long max = maxNanos.get();
+		while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+	}
+
+
+	public long getCount() {
+		return count.sum();
+	}
+
+
+	public long getMeanNanos() {
+		long n = count.sum();
+		return (n == 0) ? 0 : totalNanos.sum() / n;
+	}
+
+
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+
+	//limite superior da faixa que contém o percentil informado (0 a 100)
+	public long percentile(double percentile) {
+		long n = count.sum();
+		if (n == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(n * percentile / 100.0);
+		long seen = 0;
+		for (int i = 0; i < buckets.length(); i++) {
+			seen += buckets.get(i);
+			if (seen >= Math.max(1, rank)) {
+				return Math.min(upperBound(i), maxNanos.get());
+			}
+		}
+		return maxNanos.get();
+	}
+
+
+	private static int bucket(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int sub = (int) (nanos >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+		return (exponent - 2) * SUB_BUCKETS + sub;
+	}
+
+
+	private static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + 2;
+		int sub = bucket % SUB_BUCKETS;
+		return ((long) (SUB_BUCKETS + sub + 1) << (exponent - 3)) - 1;
+	}
+
+}
@@ -0,0 +1,96 @@
+package chess.server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+//carga sintética: muitas partidas simultâneas com movimentos aleatórios, direto no servidor
+//ou através do socket local, e o relatório de vazão e latência por operação
+public class LoadTest {
+
+	//uso: LoadTest [partidas] [clientes] [lances por partida] [--socket]
+	public static void main(String[] args) throws Exception {
+		int games = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+		int clients = (args.length > 1) ? Integer.parseInt(args[1]) : 100;
+		int plies = (args.length > 2) ? Integer.parseInt(args[2]) : 40;
+		boolean socket = args.length > 3 && args[3].equals("--socket");
+
+		GameServer server = new GameServer();
+		int port = socket ? server.start(0) : -1;
+
+		long start = System.nanoTime();
+		ExecutorService executor = GameServer.newSessionExecutor();
+		List<Future<Long>> results = new ArrayList<>();
+		for (int c = 0; c < clients; c++) {
+			int first = c * games / clients;
+			int last = (c + 1) * games / clients;
+			long seed = c;
+			results.add(executor.submit(() -> socket ? playOverSocket(port, last - first, plies, seed) : play(server, last - first, plies, seed)));
+		}
+		long moves = 0;
+		for (Future<Long> f : results) {
+			moves += f.get();
+		}
+		long nanos = System.nanoTime() - start;
+		executor.shutdown();
+
+		System.out.printf("%,d partidas, %d clientes, %,d movimentos em %.2f s (%,.0f movimentos/s)%n", games, clients, moves, nanos / 1e9, moves * 1e9 / nanos);
+		System.out.print(server.getMetrics().report());
+		server.stop();
+	}
+
+
+	//cada cliente abre as suas partidas e joga um lance em cada uma, em rodízio
+	private static long play(GameServer server, int games, int plies, long seed) {
+		Random random = new Random(seed);
+		long[] ids = new long[games];
+		for (int i = 0; i < games; i++) {
+			ids[i] = server.createMatch();
+		}
+		long moves = 0;
+		for (int ply = 0; ply < plies; ply++) {
+			for (long id : ids) {
+				List<String> legal = server.legalMoves(id);
+				if (!legal.isEmpty()) {
+					server.move(id, legal.get(random.nextInt(legal.size())));
+					moves++;
+				}
+			}
+		}
+		for (long id : ids) {
+			server.getState(id);
+			server.closeMatch(id);
+		}
+		return moves;
+	}
+
+
+	private static long playOverSocket(int port, int games, int plies, long seed) throws IOException {
+		Random random = new Random(seed);
+		try (GameClient client = new GameClient(port)) {
+			long[] ids = new long[games];
+			for (int i = 0; i < games; i++) {
+				ids[i] = client.createMatch();
+			}
+			long moves = 0;
+			for (int ply = 0; ply < plies; ply++) {
+				for (long id : ids) {
+					List<String> legal = client.legalMoves(id);
+					if (!legal.isEmpty()) {
+						client.move(id, legal.get(random.nextInt(legal.size())));
+						moves++;
+					}
+				}
+			}
+			for (long id : ids) {
+				client.send("STATE " + id);
+				client.closeMatch(id);
+			}
+			return moves;
+		}
+	}
+
+}
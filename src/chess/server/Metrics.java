@@ -0,0 +1,59 @@
+package chess.server;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+//contadores e latências por operação do servidor
+public class Metrics {
+
+	public enum Operation {
+		CREATE,
+		MOVE,
+		STATE,
+		LEGAL_MOVES,
+		CLOSE;
+	}
+
+	private Map<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+	private long startNanos = System.nanoTime();
+
+
+	public Metrics() {
+		for (Operation op : Operation.values()) {
+			histograms.put(op, new LatencyHistogram());
+		}
+	}
+
+
+	public void record(Operation op, long nanos) {
+		histograms.get(op).record(nanos);
+	}
+
+
+	public LatencyHistogram get(Operation op) {
+		return histograms.get(op);
+	}
+
+
+	//operações por segundo desde a criação do servidor
+	public double throughput(Operation op) {
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+		return histograms.get(op).getCount() / Math.max(seconds, 1e-9);
+	}
+
+
+	public String report() {
+		StringBuilder sb = new StringBuilder();
+		for (Operation op : Operation.values()) {
+			LatencyHistogram h = histograms.get(op);
+			if (h.getCount() == 0) {
+				continue;
+			}
+			sb.append(String.format("%-12s count %,d  %,.0f ops/s  mean %.1f us  p50 %.1f us  p99 %.1f us  max %.1f us%n",
+					op, h.getCount(), throughput(op), h.getMeanNanos() / 1e3, h.percentile(50) / 1e3,
+					h.percentile(99) / 1e3, h.getMaxNanos() / 1e3));
+		}
+		return sb.toString();
+	}
+
+}
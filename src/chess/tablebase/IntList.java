@@ -0,0 +1,29 @@
+package chess.tablebase;
+
+import java.util.Arrays;
+
+//lista de ints que só cresce, usada nas filas de posições da geração
+final class IntList {
+
+	private int[] values = new int[16];
+	private int size;
+
+
+	void add(int value) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+		}
+		values[size++] = value;
+	}
+
+
+	int get(int index) {
+		return values[index];
+	}
+
+
+	int size() {
+		return size;
+	}
+
+}
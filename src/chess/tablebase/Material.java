@@ -0,0 +1,114 @@
+package chess.tablebase;
+
+import chess.ChessException;
+import chess.Color;
+import chess.PieceType;
+
+//conjunto de peças de uma tabela, ex.: "KBNK" (antes do segundo K, as brancas; depois, as pretas)
+//o nome canônico põe o lado mais forte como branco e as peças em ordem Q, R, B, N, P;
+//posições com as cores trocadas são consultadas espelhando o tabuleiro
+final class Material {
+
+	static final int MAX_EXTRA_PIECES = 2;
+
+	private static final String LETTERS = "PNBRQ";
+	private static final PieceType[] TYPES = PieceType.values();
+	private static final int[] VALUES = { 1, 3, 3, 5, 9 };
+
+	final String name;
+	final int pieceCount;
+
+	//casas 0 e 1 do índice: rei branco e rei preto; as demais, as peças abaixo, na ordem do nome
+	final PieceType[] types;
+	final Color[] colors;
+
+
+	private Material(String white, String black) {
+		name = "K" + white + "K" + black;
+		pieceCount = 2 + white.length() + black.length();
+		types = new PieceType[pieceCount];
+		colors = new Color[pieceCount];
+		types[0] = PieceType.KING;
+		colors[0] = Color.WHITE;
+		types[1] = PieceType.KING;
+		colors[1] = Color.BLACK;
+		for (int i = 0; i < white.length(); i++) {
+			types[2 + i] = type(white.charAt(i));
+			colors[2 + i] = Color.WHITE;
+		}
+		for (int i = 0; i < black.length(); i++) {
+			types[2 + white.length() + i] = type(black.charAt(i));
+			colors[2 + white.length() + i] = Color.BLACK;
+		}
+	}
+
+
+	static Material parse(String name) {
+		String upper = name.toUpperCase();
+		int second = upper.indexOf('K', 1);
+		if (!upper.startsWith("K") || second < 0 || upper.indexOf('K', second + 1) >= 0) {
+			throw new ChessException("Material inválido: " + name);
+		}
+		String white = sort(upper.substring(1, second));
+		String black = sort(upper.substring(second + 1));
+		if (white.length() + black.length() > MAX_EXTRA_PIECES) {
+			throw new ChessException("Tabelas de finais suportam no máximo " + (MAX_EXTRA_PIECES + 2) + " peças: " + name);
+		}
+		if (swap(white, black)) {
+			return new Material(black, white);
+		}
+		return new Material(white, black);
+	}
+
+
+	//número de posições: uma casa por peça e a vez de jogar
+	int size() {
+		return 1 << (6 * pieceCount + 1);
+	}
+
+
+	//peças em ordem Q, R, B, N, P
+	static String sort(String pieces) {
+		StringBuilder sb = new StringBuilder();
+		for (int t = LETTERS.length() - 1; t >= 0; t--) {
+			for (int i = 0; i < pieces.length(); i++) {
+				char c = pieces.charAt(i);
+				if (LETTERS.indexOf(c) < 0) {
+					throw new ChessException("Peça inválida no material: " + c);
+				}
+				if (c == LETTERS.charAt(t)) {
+					sb.append(c);
+				}
+			}
+		}
+		return sb.toString();
+	}
+
+
+	//se as peças pretas são mais fortes (o nome canônico troca as cores)
+	static boolean swap(String white, String black) {
+		int w = value(white);
+		int b = value(black);
+		return b > w || (b == w && black.compareTo(white) > 0);
+	}
+
+
+	static char letter(PieceType type) {
+		return LETTERS.charAt(type.ordinal());
+	}
+
+
+	private static PieceType type(char c) {
+		return TYPES[LETTERS.indexOf(c)];
+	}
+
+
+	private static int value(String pieces) {
+		int v = 0;
+		for (int i = 0; i < pieces.length(); i++) {
+			v += VALUES[LETTERS.indexOf(pieces.charAt(i))] * 16 + 1;
+		}
+		return v;
+	}
+
+}
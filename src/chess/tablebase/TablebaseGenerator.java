@@ -0,0 +1,593 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import chess.Attacks;
+import chess.Color;
+import chess.PieceType;
+
+//gera as tabelas de finais por análise retrógrada:
+//1) uma passada paralela por todas as posições do material conta os lances de cada posição,
+//   marca as inválidas, os mates e afogamentos, e resolve as saídas da tabela
+//   (capturas e promoções, consultando as tabelas menores, geradas antes)
+//2) a partir dos mates, desfaz lances nível a nível: quem pode levar o adversário a uma posição perdida
+//   ganha; quem só tem lances para posições ganhas pelo adversário perde
+//as posições que sobram são empates. Roque e en passant não são considerados.
+public class TablebaseGenerator {
+
+	private static final int WIN = 0;
+	private static final int LOSS = 1;
+	private static final int CHUNKS = 256;
+	private static final PieceType[] PROMOTIONS = { PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT };
+
+	private Path directory;
+	private int threads;
+	private Map<String, byte[]> tables = new HashMap<>();
+
+
+	public TablebaseGenerator(Path directory, int threads) {
+		this.directory = directory;
+		this.threads = Math.max(1, threads);
+	}
+
+
+	//gera (ou carrega, se o arquivo já existir) a tabela do material e as tabelas de que ela depende
+	public byte[] generate(String name) throws IOException {
+		Material material = Material.parse(name);
+		byte[] table = tables.get(material.name);
+		if (table != null) {
+			return table;
+		}
+		Path path = directory.resolve(material.name + Tablebases.EXTENSION);
+		if (Files.exists(path)) {
+			table = read(path, material);
+			tables.put(material.name, table);
+			return table;
+		}
+
+		//tabelas das capturas e promoções
+		for (int slot = 2; slot < material.pieceCount; slot++) {
+			generate(subName(material, slot, -1, null));
+			if (material.types[slot] == PieceType.PAWN) {
+				for (PieceType promotion : PROMOTIONS) {
+					generate(subName(material, -1, slot, promotion));
+				}
+			}
+		}
+
+		long start = System.nanoTime();
+		table = new Solver(material).solve();
+		tables.put(material.name, table);
+		write(path, material, table);
+		System.out.printf("%s: %,d posições em %.1f s, %s%n", material.name, table.length, (System.nanoTime() - start) / 1e9, summary(table));
+		return table;
+	}
+
+
+	private static String summary(byte[] table) {
+		long wins = 0, losses = 0, draws = 0;
+		int longest = 0;
+		for (byte b : table) {
+			int code = b & 0xFF;
+			if (code == Tablebases.INVALID) {
+				continue;
+			}
+			if (code == Tablebases.DRAW) {
+				draws++;
+			}
+			else if (code < Tablebases.LOSS) {
+				wins++;
+				longest = Math.max(longest, code);
+			}
+			else {
+				losses++;
+				longest = Math.max(longest, code - Tablebases.LOSS);
+			}
+		}
+		return String.format("%,d vitórias, %,d derrotas, %,d empates, mate mais longo em %d meios-lances", wins, losses, draws, longest);
+	}
+
+
+	private static void write(Path path, Material material, byte[] table) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(Tablebases.HEADER_SIZE);
+			header.putInt(Tablebases.MAGIC).putInt(Tablebases.VERSION).putInt(material.pieceCount).putInt(table.length).flip();
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			ByteBuffer data = ByteBuffer.wrap(table);
+			while (data.hasRemaining()) {
+				channel.write(data);
+			}
+		}
+	}
+
+
+	private static byte[] read(Path path, Material material) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(Tablebases.HEADER_SIZE);
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+			}
+			header.flip();
+			if (header.remaining() < Tablebases.HEADER_SIZE || header.getInt(0) != Tablebases.MAGIC
+					|| header.getInt(4) != Tablebases.VERSION || header.getInt(12) != material.size()) {
+				throw new IOException("Tabela de finais inválida: " + path);
+			}
+			ByteBuffer data = ByteBuffer.allocate(material.size());
+			while (data.hasRemaining() && channel.read(data) >= 0) {
+			}
+			if (data.hasRemaining()) {
+				throw new IOException("Tabela de finais truncada: " + path);
+			}
+			return data.array();
+		}
+	}
+
+
+	//análise de um material: as tabelas menores já estão em "tables"
+	private class Solver {
+
+		private Material material;
+		private int n;
+		private PieceType[] types;
+		private Color[] colors;
+
+		private byte[] result;
+		private byte[] remaining;
+		//bit 7: alguma saída da tabela não perde; bits 0-6: maior distância de vitória do adversário nas saídas + 1
+		private byte[] exitInfo;
+		private IntList[] levels = new IntList[256];
+
+		//saídas indexadas por [peça capturada + 1][peão promovido + 1][tipo da promoção]
+		private Exit[][][] exits;
+
+
+		Solver(Material material) {
+			this.material = material;
+			n = material.pieceCount;
+			types = material.types;
+			colors = material.colors;
+			exits = new Exit[n + 1][n + 1][PROMOTIONS.length + 1];
+			for (int captured = -1; captured < n; captured++) {
+				for (int promoted = -1; promoted < n; promoted++) {
+					if (captured >= 0 && captured < 2 || captured >= 0 && captured == promoted) {
+						continue;
+					}
+					if (promoted >= 0 && types[promoted] != PieceType.PAWN) {
+						continue;
+					}
+					if (captured < 0 && promoted < 0) {
+						continue;
+					}
+					for (int p = 0; p <= PROMOTIONS.length; p++) {
+						if ((promoted < 0) != (p == 0)) {
+							continue;
+						}
+						exits[captured + 1][promoted + 1][p] = new Exit(captured, promoted, p == 0 ? null : PROMOTIONS[p - 1]);
+					}
+				}
+			}
+			for (int i = 0; i < levels.length; i++) {
+				levels[i] = new IntList();
+			}
+		}
+
+
+		byte[] solve() {
+			int size = material.size();
+			result = new byte[size];
+			remaining = new byte[size];
+			exitInfo = new byte[size];
+
+			//passada inicial, dividida em blocos independentes entre as threads
+			int chunk = size / CHUNKS;
+			IntList[][] found = new IntList[CHUNKS][];
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				pool.submit(() -> IntStream.range(0, CHUNKS).parallel().forEach(c -> {
+					IntList[] candidates = { new IntList(), new IntList() };
+					int[] squares = new int[n];
+					int[] scratch = new int[n];
+					for (int index = c * chunk; index < (c + 1) * chunk; index++) {
+						analyse(index, squares, scratch, candidates);
+					}
+					found[c] = candidates;
+				})).get();
+			}
+			catch (InterruptedException | ExecutionException e) {
+				throw new IllegalStateException("Falha na geração da tabela " + material.name, e);
+			}
+			finally {
+				pool.shutdown();
+			}
+			for (IntList[] candidates : found) {
+				for (int i = 0; i < candidates[0].size(); i++) {
+					levels[candidates[1].get(i)].add(candidates[0].get(i));
+				}
+			}
+
+			retrograde();
+			return result;
+		}
+
+
+		//classifica a posição e conta os seus lances; candidatos: pares (posição << 1 | resultado, nível)
+		private void analyse(int index, int[] sq, int[] tmp, IntList[] candidates) {
+			Color mover = decode(index, sq);
+			long occupied = occupancy(sq);
+			if (!valid(sq, mover, occupied)) {
+				result[index] = (byte) Tablebases.INVALID;
+				return;
+			}
+			Color them = opposite(mover);
+			int king = (mover == Color.WHITE) ? 0 : 1;
+			long own = 0L;
+			long enemy = 0L;
+			for (int j = 0; j < n; j++) {
+				if (colors[j] == mover) {
+					own |= 1L << sq[j];
+				}
+				else {
+					enemy |= 1L << sq[j];
+				}
+			}
+
+			int legal = 0;
+			int inTable = 0;
+			int bestWin = Integer.MAX_VALUE;
+			int longestLoss = -1;
+			boolean safeExit = false;
+
+			for (int j = 0; j < n; j++) {
+				if (colors[j] != mover) {
+					continue;
+				}
+				int from = sq[j];
+				boolean pawn = types[j] == PieceType.PAWN;
+				long targets;
+				if (pawn) {
+					int forward = (mover == Color.WHITE) ? -8 : 8;
+					targets = Attacks.pawn(mover, from) & enemy;
+					int one = from + forward;
+					if ((occupied & (1L << one)) == 0) {
+						targets |= 1L << one;
+						int startRow = (mover == Color.WHITE) ? 6 : 1;
+						if ((from >>> 3) == startRow && (occupied & (1L << (one + forward))) == 0) {
+							targets |= 1L << (one + forward);
+						}
+					}
+				}
+				else {
+					targets = attacks(j, from, occupied) & ~own;
+				}
+
+				while (targets != 0) {
+					int to = Long.numberOfTrailingZeros(targets);
+					targets &= targets - 1;
+					int captured = -1;
+					if ((enemy & (1L << to)) != 0) {
+						captured = slotAt(sq, to);
+					}
+					System.arraycopy(sq, 0, tmp, 0, n);
+					tmp[j] = to;
+					long after = (occupied & ~(1L << from)) | (1L << to);
+					if (attackedBy(tmp[king], them, tmp, after, captured)) {
+						continue;
+					}
+					legal++;
+					boolean promotion = pawn && ((to >>> 3) == 0 || (to >>> 3) == 7);
+					if (captured < 0 && !promotion) {
+						inTable++;
+						continue;
+					}
+					for (int p = promotion ? 1 : 0; p <= (promotion ? PROMOTIONS.length : 0); p++) {
+						int code = exits[captured + 1][promotion ? j + 1 : 0][p].probe(tmp, them);
+						if (code == Tablebases.INVALID) {
+							throw new IllegalStateException("Posição inválida na tabela menor, a partir de " + material.name);
+						}
+						if (code >= Tablebases.LOSS) {
+							bestWin = Math.min(bestWin, code - Tablebases.LOSS + 1);
+							safeExit = true;
+						}
+						else if (code == Tablebases.DRAW) {
+							safeExit = true;
+						}
+						else {
+							longestLoss = Math.max(longestLoss, code);
+						}
+					}
+				}
+			}
+
+			remaining[index] = (byte) inTable;
+			exitInfo[index] = (byte) ((safeExit ? 0x80 : 0) | (longestLoss + 1));
+			if (legal == 0) {
+				if (attackedBy(sq[king], them, sq, occupied, -1)) {
+					candidates[0].add(index << 1 | LOSS);
+					candidates[1].add(0);
+				}
+			}
+			else if (bestWin != Integer.MAX_VALUE) {
+				candidates[0].add(index << 1 | WIN);
+				candidates[1].add(bestWin);
+			}
+			else if (inTable == 0 && !safeExit) {
+				candidates[0].add(index << 1 | LOSS);
+				candidates[1].add(longestLoss + 1);
+			}
+		}
+
+
+		//resolve as posições em ordem crescente de distância até o mate
+		private void retrograde() {
+			int[] sq = new int[n];
+			IntList resolved = new IntList();
+			for (int level = 0; level < Tablebases.LOSS - 1; level++) {
+				IntList current = levels[level];
+				if (current.size() == 0 && pendingAbove(level)) {
+					continue;
+				}
+				if (current.size() == 0) {
+					break;
+				}
+				resolved = new IntList();
+				for (int i = 0; i < current.size(); i++) {
+					int entry = current.get(i);
+					int index = entry >>> 1;
+					if (result[index] != Tablebases.DRAW) {
+						continue;
+					}
+					result[index] = (byte) ((entry & 1) == WIN ? level : Tablebases.LOSS + level);
+					resolved.add(index);
+				}
+				levels[level] = null;
+				for (int i = 0; i < resolved.size(); i++) {
+					int index = resolved.get(i);
+					boolean lost = (result[index] & 0xFF) >= Tablebases.LOSS;
+					predecessors(index, sq, lost, level);
+				}
+			}
+		}
+
+
+		private boolean pendingAbove(int level) {
+			for (int i = level + 1; i < levels.length; i++) {
+				if (levels[i] != null && levels[i].size() > 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+
+		//desfaz os lances que levam à posição: o lado que acabou de jogar é o adversário de quem tem a vez
+		private void predecessors(int index, int[] sq, boolean lost, int level) {
+			Color mover = decode(index, sq);
+			Color last = opposite(mover);
+			long occupied = occupancy(sq);
+			for (int j = 0; j < n; j++) {
+				if (colors[j] != last) {
+					continue;
+				}
+				int to = sq[j];
+				long origins;
+				if (types[j] == PieceType.PAWN) {
+					int back = (last == Color.WHITE) ? 8 : -8;
+					origins = 0L;
+					int one = to + back;
+					if (one >= 0 && one < 64 && (occupied & (1L << one)) == 0) {
+						origins |= 1L << one;
+						int doubleRow = (last == Color.WHITE) ? 4 : 3;
+						if ((to >>> 3) == doubleRow && (occupied & (1L << (one + back))) == 0) {
+							origins |= 1L << (one + back);
+						}
+					}
+				}
+				else {
+					origins = attacks(j, to, occupied) & ~occupied;
+				}
+				while (origins != 0) {
+					int from = Long.numberOfTrailingZeros(origins);
+					origins &= origins - 1;
+					sq[j] = from;
+					int previous = encode(sq, last);
+					sq[j] = to;
+					if (result[previous] != Tablebases.DRAW) {
+						continue;
+					}
+					if (lost) {
+						levels[level + 1].add(previous << 1 | WIN);
+					}
+					else if (--remaining[previous] == 0 && (exitInfo[previous] & 0x80) == 0) {
+						levels[Math.max(level + 1, exitInfo[previous] & 0x7F)].add(previous << 1 | LOSS);
+					}
+				}
+			}
+		}
+
+
+		private Color decode(int index, int[] sq) {
+			int rest = index >>> 1;
+			for (int j = n - 1; j >= 0; j--) {
+				sq[j] = rest & 63;
+				rest >>>= 6;
+			}
+			return ((index & 1) == 0) ? Color.WHITE : Color.BLACK;
+		}
+
+
+		private int encode(int[] sq, Color mover) {
+			int index = 0;
+			for (int j = 0; j < n; j++) {
+				index = index << 6 | sq[j];
+			}
+			return index << 1 | (mover == Color.WHITE ? 0 : 1);
+		}
+
+
+		private long occupancy(int[] sq) {
+			long occupied = 0L;
+			for (int j = 0; j < n; j++) {
+				occupied |= 1L << sq[j];
+			}
+			return occupied;
+		}
+
+
+		//casas distintas, peões fora da primeira e da última fileira e o rei de quem não joga fora de check
+		private boolean valid(int[] sq, Color mover, long occupied) {
+			if (Long.bitCount(occupied) != n) {
+				return false;
+			}
+			for (int j = 2; j < n; j++) {
+				if (types[j] == PieceType.PAWN && ((sq[j] >>> 3) == 0 || (sq[j] >>> 3) == 7)) {
+					return false;
+				}
+			}
+			return !attackedBy(sq[mover == Color.WHITE ? 1 : 0], mover, sq, occupied, -1);
+		}
+
+
+		private int slotAt(int[] sq, int square) {
+			for (int j = 0; j < n; j++) {
+				if (sq[j] == square) {
+					return j;
+				}
+			}
+			return -1;
+		}
+
+
+		//se alguma peça da cor (exceto a da posição skip, capturada) ataca a casa
+		private boolean attackedBy(int target, Color color, int[] sq, long occupied, int skip) {
+			for (int j = 0; j < n; j++) {
+				if (j != skip && colors[j] == color && (attacks(j, sq[j], occupied) & (1L << target)) != 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+
+		private long attacks(int j, int square, long occupied) {
+			switch (types[j]) {
+			case PAWN:
+				return Attacks.pawn(colors[j], square);
+			case KNIGHT:
+				return Attacks.knight(square);
+			case BISHOP:
+				return Attacks.bishop(square, occupied);
+			case ROOK:
+				return Attacks.rook(square, occupied);
+			case QUEEN:
+				return Attacks.queen(square, occupied);
+			default:
+				return Attacks.king(square);
+			}
+		}
+
+
+		//posição resultante de uma captura ou promoção, na tabela menor correspondente
+		private class Exit {
+
+			private byte[] table;
+			private boolean swapped;
+			private int[] slots;
+			private int count;
+
+
+			Exit(int captured, int promoted, PieceType promotion) {
+				Material sub = Material.parse(subName(material, captured, promoted, promotion));
+				table = tables.get(sub.name);
+				count = sub.pieceCount;
+				slots = new int[count];
+
+				//a tabela menor pode ter as cores trocadas (ex.: KRK vista do lado que perdeu a dama)
+				StringBuilder white = new StringBuilder();
+				StringBuilder black = new StringBuilder();
+				for (int j = 2; j < n; j++) {
+					if (j != captured) {
+						PieceType type = (j == promoted) ? promotion : types[j];
+						(colors[j] == Color.WHITE ? white : black).append(Material.letter(type));
+					}
+				}
+				swapped = Material.swap(Material.sort(white.toString()), Material.sort(black.toString()));
+
+				boolean[] used = new boolean[n];
+				for (int k = 0; k < count; k++) {
+					for (int j = 0; j < n; j++) {
+						PieceType type = (j == promoted) ? promotion : types[j];
+						Color color = swapped ? opposite(colors[j]) : colors[j];
+						if (!used[j] && j != captured && type == sub.types[k] && color == sub.colors[k]) {
+							used[j] = true;
+							slots[k] = j;
+							break;
+						}
+					}
+				}
+			}
+
+
+			int probe(int[] sq, Color mover) {
+				int index = 0;
+				for (int k = 0; k < count; k++) {
+					int square = sq[slots[k]];
+					index = index << 6 | (swapped ? square ^ 56 : square);
+				}
+				Color side = swapped ? opposite(mover) : mover;
+				return table[index << 1 | (side == Color.WHITE ? 0 : 1)] & 0xFF;
+			}
+		}
+	}
+
+
+	//nome canônico do material depois de capturar a peça captured e/ou promover o peão promoted (-1: nenhum)
+	private static String subName(Material material, int captured, int promoted, PieceType promotion) {
+		StringBuilder white = new StringBuilder();
+		StringBuilder black = new StringBuilder();
+		for (int slot = 2; slot < material.pieceCount; slot++) {
+			if (slot == captured) {
+				continue;
+			}
+			PieceType type = (slot == promoted) ? promotion : material.types[slot];
+			(material.colors[slot] == Color.WHITE ? white : black).append(Material.letter(type));
+		}
+		return Material.parse("K" + white + "K" + black).name;
+	}
+
+
+	private static Color opposite(Color color) {
+		return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+	}
+
+
+	//uso: TablebaseGenerator [diretório] [threads] [material...]  (padrão: KQK KRK KPK KBNK)
+	public static void main(String[] args) throws IOException {
+		Path directory = Paths.get(args.length > 0 ? args[0] : "tablebases");
+		int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		Files.createDirectories(directory);
+		TablebaseGenerator generator = new TablebaseGenerator(directory, threads);
+		if (args.length > 2) {
+			for (int i = 2; i < args.length; i++) {
+				generator.generate(args[i]);
+			}
+		}
+		else {
+			for (String name : new String[] { "KQK", "KRK", "KPK", "KBNK" }) {
+				generator.generate(name);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,231 @@
+package chess.tablebase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import chess.ChessBoard;
+import chess.ChessMatch;
+import chess.Color;
+import chess.Fen;
+import chess.PieceType;
+import chess.pgn.PgnGame;
+
+//tabelas de finais geradas por TablebaseGenerator, lidas por memória mapeada
+//arquivo: cabeçalho de 16 bytes ("CHTB", versão, número de peças, número de posições)
+//e um byte por posição, no índice ((rei branco * 64 + rei preto) * 64 + peças...) * 2 + vez (0 = brancas)
+//byte: 0 empate, 1..127 quem joga dá mate em n meios-lances, 128 + n quem joga leva mate em n meios-lances, 255 posição inválida
+//a consulta só calcula o índice e lê um byte; pode ser feita por várias threads ao mesmo tempo
+public class Tablebases implements Closeable {
+
+	public static final String EXTENSION = ".tb";
+	public static final int NOT_FOUND = -1;
+	public static final int DRAW = 0;
+	public static final int LOSS = 128;
+	public static final int INVALID = 255;
+
+	static final int MAGIC = 0x43485442;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+
+	private static final PieceType[] SIGNATURE_ORDER = { PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT, PieceType.PAWN };
+
+	private List<FileChannel> channels = new ArrayList<>();
+	//cada tabela aparece duas vezes: com o material como no nome e com as cores trocadas
+	private long[] signatures = new long[0];
+	private Table[] tables = new Table[0];
+	private boolean[] swapped = new boolean[0];
+	private int maxPieces;
+
+
+	private static class Table {
+
+		Material material;
+		MappedByteBuffer buffer;
+
+		Table(Material material, MappedByteBuffer buffer) {
+			this.material = material;
+			this.buffer = buffer;
+		}
+	}
+
+
+	//abre todos os arquivos .tb do diretório
+	public Tablebases(Path directory) throws IOException {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+			for (Path path : files) {
+				String file = path.getFileName().toString();
+				open(path, Material.parse(file.substring(0, file.length() - EXTENSION.length())));
+			}
+		}
+	}
+
+
+	private void open(Path path, Material material) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		channels.add(channel);
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+				|| buffer.getInt(8) != material.pieceCount || buffer.getInt(12) != material.size()
+				|| buffer.capacity() < (long) HEADER_SIZE + material.size()) {
+			throw new IOException("Tabela de finais inválida: " + path);
+		}
+		Table table = new Table(material, buffer);
+		add(signature(material, false), table, false);
+		add(signature(material, true), table, true);
+		maxPieces = Math.max(maxPieces, material.pieceCount);
+	}
+
+
+	private void add(long signature, Table table, boolean swap) {
+		int n = tables.length;
+		signatures = Arrays.copyOf(signatures, n + 1);
+		tables = Arrays.copyOf(tables, n + 1);
+		swapped = Arrays.copyOf(swapped, n + 1);
+		signatures[n] = signature;
+		tables[n] = table;
+		swapped[n] = swap;
+	}
+
+
+	//maior número de peças (reis incluídos) entre as tabelas abertas
+	public int getMaxPieces() {
+		return maxPieces;
+	}
+
+
+	public int size() {
+		return channels.size();
+	}
+
+
+	//código da posição do ponto de vista de quem joga, ou NOT_FOUND
+	//(sem tabela para o material, com direito a roque ou com captura en passant possível)
+	public int probe(ChessMatch match) {
+		ChessBoard board = match.getBoard();
+		if (Long.bitCount(board.occupied()) > maxPieces || match.getCastlingRights() != 0) {
+			return NOT_FOUND;
+		}
+		if (match.getEnPassantVulnerable() != null && board.pieces(Color.WHITE, PieceType.PAWN) != 0
+				&& board.pieces(Color.BLACK, PieceType.PAWN) != 0) {
+			return NOT_FOUND;
+		}
+		long signature = signature(board);
+		for (int i = 0; i < tables.length; i++) {
+			if (signatures[i] == signature) {
+				return probe(tables[i], swapped[i], board, match.getCurrentPlayer());
+			}
+		}
+		return NOT_FOUND;
+	}
+
+
+	private static int probe(Table table, boolean swap, ChessBoard board, Color mover) {
+		Material material = table.material;
+		int index = 0;
+		long used = 0L;
+		for (int k = 0; k < material.pieceCount; k++) {
+			Color color = swap ? opposite(material.colors[k]) : material.colors[k];
+			long bits = board.pieces(color, material.types[k]) & ~used;
+			int square = Long.numberOfTrailingZeros(bits);
+			used |= 1L << square;
+			index = index << 6 | (swap ? square ^ 56 : square);
+		}
+		Color side = swap ? opposite(mover) : mover;
+		int code = table.buffer.get(HEADER_SIZE + (index << 1 | (side == Color.WHITE ? 0 : 1))) & 0xFF;
+		return (code == INVALID) ? NOT_FOUND : code;
+	}
+
+
+	//resultado da partida pela tabela (constantes de PgnGame), ou null se a posição não estiver nas tabelas
+	public String adjudicate(ChessMatch match) {
+		int code = probe(match);
+		if (code == NOT_FOUND) {
+			return null;
+		}
+		if (code == DRAW) {
+			return PgnGame.DRAW;
+		}
+		boolean whiteWins = isWin(code) == (match.getCurrentPlayer() == Color.WHITE);
+		return whiteWins ? PgnGame.WHITE_WINS : PgnGame.BLACK_WINS;
+	}
+
+
+	public static boolean isWin(int code) {
+		return code > DRAW && code < LOSS;
+	}
+
+
+	public static boolean isLoss(int code) {
+		return code >= LOSS && code < INVALID;
+	}
+
+
+	//meios-lances até o mate (0 para empate ou quem já levou mate)
+	public static int distance(int code) {
+		return isLoss(code) ? code - LOSS : (isWin(code) ? code : 0);
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		for (FileChannel channel : channels) {
+			channel.close();
+		}
+	}
+
+
+	//quantidade de cada peça, 4 bits por (cor, tipo); reis não contam
+	private static long signature(ChessBoard board) {
+		long signature = 0L;
+		for (PieceType type : SIGNATURE_ORDER) {
+			signature |= (long) Long.bitCount(board.pieces(Color.WHITE, type)) << (4 * type.ordinal());
+			signature |= (long) Long.bitCount(board.pieces(Color.BLACK, type)) << (4 * (type.ordinal() + 5));
+		}
+		return signature;
+	}
+
+
+	private static long signature(Material material, boolean swap) {
+		long signature = 0L;
+		for (int k = 2; k < material.pieceCount; k++) {
+			boolean white = (material.colors[k] == Color.WHITE) != swap;
+			signature += 1L << (4 * (material.types[k].ordinal() + (white ? 0 : 5)));
+		}
+		return signature;
+	}
+
+
+	private static Color opposite(Color color) {
+		return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+	}
+
+
+	//uso: Tablebases <diretório> <fen>  mostra o resultado da posição pela tabela
+	public static void main(String[] args) throws IOException {
+		try (Tablebases tablebases = new Tablebases(Paths.get(args.length > 0 ? args[0] : "tablebases"))) {
+			ChessMatch match = Fen.parse(args.length > 1 ? args[1] : "8/8/8/4k3/8/8/8/4K2Q w - - 0 1");
+			int code = tablebases.probe(match);
+			if (code == NOT_FOUND) {
+				System.out.println("Posição fora das tabelas (" + tablebases.size() + " tabelas abertas)");
+			}
+			else if (code == DRAW) {
+				System.out.println("Empate");
+			}
+			else {
+				System.out.println((isWin(code) ? "Vitória" : "Derrota") + " de quem joga, mate em " + distance(code) + " meios-lances ("
+						+ tablebases.adjudicate(match) + ")");
+			}
+		}
+	}
+
+}